@@ -0,0 +1,184 @@
+import javax.imageio.ImageIO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A command line tool that renders every file of tokenized HTML in a
+ * directory to a PNG image, or to HTML or SVG, without a window. Files are
+ * rendered in parallel, one per thread, and read a line at a time rather
+ * than all at once; font metrics are shared between threads through
+ * {@link HtmlFontMetrics}. Images are only rendered while their pixels fit
+ * in a budget shared by every thread, so that only a few large images are
+ * held in memory at once.
+ *
+ * <p>Usage: {@code java HtmlBatchRenderer inputDirectory outputDirectory
+ * [threads [png|html|svg]]}. Each input file {@code name} is written to
+ * {@code outputDirectory/name.png}, or {@code .html} or {@code .svg}; HTML
+ * and SVG are written with {@link HtmlExporter}. The time taken for each
+ * file and the overall number of files per second are printed. If the
+ * {@link HtmlFontMetricsCache#FILE_PROPERTY} system property names a file,
+ * font metrics are loaded from it first and saved to it afterwards.
+ *
+ * @since October 19th, 2026
+ * @see HtmlTokenPrinter
+ */
+public class HtmlBatchRenderer {
+
+	/**
+	 * The largest image rendered, in pixels.
+	 */
+	private static final int MAX_IMAGE_PIXELS = 64 << 20;
+
+	/**
+	 * The most pixels of images being rendered at once, across all threads,
+	 * which bounds their memory to four bytes a pixel whatever the number of
+	 * threads.
+	 */
+	private static final int MAX_PIXELS_IN_FLIGHT = 64 << 20;
+
+	/**
+	 * Permits for the pixels of images being rendered, one per pixel.
+	 */
+	private static final Semaphore PIXELS =
+		new Semaphore(MAX_PIXELS_IN_FLIGHT, true);
+
+	/**
+	 * Each thread's {@code HtmlCanvas}.
+	 */
+	private static final ThreadLocal<HtmlCanvas> CANVASES =
+		ThreadLocal.withInitial(HtmlCanvas::new);
+
+	/**
+	 * Renders a single file of tokenized HTML to a PNG image, HTML or SVG.
+	 *
+	 * @param  input  The file to render
+	 * @param  output The file to write
+	 * @param  format The format to write: png, html or svg
+	 * @return A summary of the file, for printing
+	 * @throws IOException          if reading or writing fails
+	 * @throws InterruptedException if interrupted while waiting for the
+	 *  image's pixels to be free
+	 */
+	private static String render(Path input, Path output, String format)
+		throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		HtmlCanvas htmlCanvas = CANVASES.get();
+		HtmlPrinter htmlPrinter = new HtmlPrinter(null, htmlCanvas);
+		htmlPrinter.preventDrawing();
+		htmlCanvas.setHtmlComponents(htmlPrinter.getHtmlComponents());
+		try {
+			try (BufferedReader reader = Files.newBufferedReader(input,
+				StandardCharsets.UTF_8)) {
+				new HtmlTokenPrinter(htmlPrinter).print(reader);
+			}
+			int width = htmlCanvas.getWidth();
+			int height = htmlCanvas.getHeight();
+			if (!format.equals("png"))
+				try (OutputStream out = Files.newOutputStream(output)) {
+					if (format.equals("html"))
+						HtmlExporter.exportHtml(htmlCanvas, out);
+					else HtmlExporter.exportSvg(htmlCanvas, out);
+				}
+			else if ((long)width * height > MAX_IMAGE_PIXELS)
+				throw new IOException("Image too large: " + width + "x" +
+					height);
+			else {
+				int imagePixels = width * height;
+				PIXELS.acquire(imagePixels);
+				try {
+					if (!ImageIO.write(htmlCanvas.toImage(), "png",
+						output.toFile()))
+						throw new IOException("No PNG writer");
+				} finally {
+					PIXELS.release(imagePixels);
+				}
+			}
+			return String.format("%s: %d components, %dx%d, %.1f ms",
+				input.getFileName(), htmlPrinter.getHtmlComponents().size(),
+				width, height, (System.nanoTime() - start) / 1e6);
+		} finally {
+			htmlCanvas.setHtmlComponents(null); // Release the document
+		}
+	}
+
+	/**
+	 * Renders a directory of tokenized HTML files.
+	 *
+	 * @param args The input directory, output directory and, optionally, the
+	 *  number of threads to use and the format to write
+	 * @throws IOException          if the directories cannot be read or
+	 *  created
+	 * @throws InterruptedException if interrupted while rendering
+	 */
+	public static void main(String[] args) throws IOException,
+		InterruptedException {
+		String format = args.length > 3 ? args[3] : "png";
+		if (args.length < 2 || args.length > 4 ||
+			!format.matches("png|html|svg")) {
+			System.err.println("Usage: java HtmlBatchRenderer inputDirectory " +
+				"outputDirectory [threads [png|html|svg]]");
+			System.exit(2);
+		}
+		System.setProperty("java.awt.headless", "true");
+		Path inputDirectory = Paths.get(args[0]);
+		Path outputDirectory = Paths.get(args[1]);
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+			Runtime.getRuntime().availableProcessors();
+		Files.createDirectories(outputDirectory);
+
+		long start = System.nanoTime();
+		Path fontMetricsCache = HtmlFontMetricsCache.getDefaultFile();
+		if (fontMetricsCache != null)
+			HtmlFontMetricsCache.load(fontMetricsCache);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Path> inputs = new ArrayList<Path>();
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		try (DirectoryStream<Path> files =
+			Files.newDirectoryStream(inputDirectory)) {
+			for (Path input : files) {
+				if (!Files.isRegularFile(input))
+					continue;
+				Path output = outputDirectory.resolve(input.getFileName() +
+					"." + format);
+				inputs.add(input);
+				results.add(executor.submit(() -> render(input, output,
+					format)));
+			}
+		}
+
+		int failures = 0;
+		for (int i = 0; i < results.size(); i++)
+			try {
+				System.out.println(results.get(i).get());
+			} catch (ExecutionException e) {
+				failures++;
+				System.err.println(inputs.get(i).getFileName() + ": " +
+					e.getCause());
+			}
+		executor.shutdown();
+		if (fontMetricsCache != null)
+			HtmlFontMetricsCache.save(fontMetricsCache);
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d files (%d failed) in %.2f s on %d threads: " +
+			"%.1f files/s%n", results.size(), failures, seconds, threads,
+			results.size() / seconds);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+}
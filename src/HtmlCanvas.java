@@ -1,12 +1,18 @@
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.ConcurrentModificationException;
+import java.util.Objects;
 
 /**
  * Performs the actual rendering of {@link HtmlComponent}s. Drawing directly
@@ -24,11 +30,116 @@ public class HtmlCanvas extends JPanel {
 	private final int X_MARGIN = 50;
 	private final int Y_MARGIN = 50;
 
+	/**
+	 * Receives each {@link HtmlComponent} and the position it is drawn at.
+	 * @see HtmlCanvas#layOut
+	 */
+	public interface LayoutVisitor {
+		/**
+		 * Visits a component.
+		 * @param component the {@link HtmlComponent}
+		 * @param x         the x coord of its left edge
+		 * @param y         the y coord of the top of its line
+		 */
+		void visit(HtmlComponent component, int x, int y);
+	}
+
 	private boolean drawLineMark;
 	private int lineMarkX;
 
 	private List<HtmlComponent> htmlComponents;
 
+	/**
+	 * Incremented whenever components are replaced rather than appended, so
+	 * that cached renderings can tell they are stale.
+	 */
+	private volatile int revision;
+
+	/**
+	 * The extents of the components measured so far, which only the
+	 * components appended since need to be added to.
+	 */
+	private final Extents extents = new Extents();
+
+	/**
+	 * The total height of the lines and the width of the widest finished
+	 * line of the first {@code count} components, as of a revision.
+	 */
+	private static class Extents {
+		int revision = -1;
+		int count;
+		int height;
+		int width;
+
+		/**
+		 * The width of the line after the last break.
+		 */
+		int lineWidth;
+	}
+
+	/**
+	 * The clip bounds of the current paint, reused between paints.
+	 */
+	private final Rectangle clipBounds = new Rectangle();
+
+	private HtmlTilePrefetcher tilePrefetcher;
+
+	private HtmlHitTester hitTester;
+	private HtmlSelection selection;
+
+	/**
+	 * How long, in milliseconds, scrolling must stop for before adaptive
+	 * rendering returns to the full quality profile.
+	 */
+	private static final int SCROLL_IDLE_DELAY = 150;
+
+	private HtmlRenderingProfile renderingProfile =
+		HtmlRenderingProfile.QUALITY;
+
+	/**
+	 * Whether to paint with {@link HtmlRenderingProfile#SPEED} while
+	 * scrolling, and whether scrolling is in progress.
+	 */
+	private boolean adaptiveRendering;
+	private boolean scrolling;
+
+	/**
+	 * Ends scrolling once the canvas has not moved for
+	 * {@link #SCROLL_IDLE_DELAY}.
+	 */
+	private final Timer scrollIdleTimer;
+
+	/**
+	 * The number of frames painted and the total time spent painting them, by
+	 * {@link HtmlRenderingProfile}.
+	 */
+	private final long[] profileFrames =
+		new long[HtmlRenderingProfile.values().length];
+	private final long[] profileFrameNanos =
+		new long[HtmlRenderingProfile.values().length];
+
+	/**
+	 * Constructs a {@code HtmlCanvas} with a white background.
+	 */
+	public HtmlCanvas() {
+		setBackground(Color.WHITE);
+		scrollIdleTimer = new Timer(SCROLL_IDLE_DELAY, e -> {
+			scrolling = false;
+			repaint(); // At full quality
+		});
+		scrollIdleTimer.setRepeats(false);
+		// A scroll pane scrolls by moving its view
+		addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentMoved(ComponentEvent e) {
+				if (!adaptiveRendering)
+					return;
+				scrolling = true;
+				scrollIdleTimer.restart();
+			}
+		});
+	}
+
 	/**
 	 * Sets the htmlComponents for this object.
 	 * @param htmlComponents a {@link List} of {@link HtmlComponent}s
@@ -37,6 +148,115 @@ public class HtmlCanvas extends JPanel {
 		this.htmlComponents = htmlComponents;
 		drawLineMark = false;
 		lineMarkX = 0;
+		contentsChanged();
+	}
+
+	/**
+	 * Notes that components have been replaced or removed, rather than only
+	 * appended.
+	 */
+	public void contentsChanged() {
+		revision++;
+	}
+
+	/**
+	 * Notes that components have been removed from the end, leaving a count
+	 * whose extents are already known, so that they need not be measured
+	 * again.
+	 * @param count     the number of components left
+	 * @param height    the total height of their lines
+	 * @param width     the width of the widest of their lines ended by a
+	 *  break
+	 * @param lineWidth the width of the components after the last break
+	 */
+	void contentsTruncated(int count, int height, int width, int lineWidth) {
+		synchronized (extents) {
+			contentsChanged();
+			extents.revision = revision;
+			extents.count = count;
+			extents.height = height;
+			extents.width = width;
+			extents.lineWidth = lineWidth;
+		}
+	}
+
+	/**
+	 * Gets the revision of the components, which changes whenever components
+	 * are replaced or removed.
+	 * @return the revision
+	 */
+	public int getRevision() {
+		return revision;
+	}
+
+	/**
+	 * Gets the number of {@link HtmlComponent}s drawn.
+	 * @return the number of components
+	 */
+	public int getHtmlComponentCount() {
+		return htmlComponents == null ? 0 : htmlComponents.size();
+	}
+
+	/**
+	 * Gets the y coord of the top of the last, unfinished line; appending
+	 * components never changes anything drawn above it.
+	 * @return the y coord of the last line
+	 */
+	public int getLastLineTop() {
+		return getCanvasHeight() - Y_MARGIN;
+	}
+
+	/**
+	 * Sets the {@link HtmlTilePrefetcher} whose tiles are drawn instead of
+	 * the components when they are ready.
+	 * @param tilePrefetcher the prefetcher, or {@code null} for none
+	 */
+	public void setTilePrefetcher(HtmlTilePrefetcher tilePrefetcher) {
+		this.tilePrefetcher = tilePrefetcher;
+	}
+
+	/**
+	 * Gets the {@link HtmlHitTester} that maps points on this canvas to
+	 * positions in its components.
+	 * @return the hit tester
+	 */
+	public synchronized HtmlHitTester getHitTester() {
+		if (hitTester == null)
+			hitTester = new HtmlHitTester(this);
+		return hitTester;
+	}
+
+	/**
+	 * Sets the {@link HtmlSelection} highlighted after the components are
+	 * painted. Called by the selection itself.
+	 * @param selection the selection, or {@code null} for none
+	 */
+	void setSelection(HtmlSelection selection) {
+		this.selection = selection;
+	}
+
+	/**
+	 * Gets the components drawn.
+	 * @return the {@link List} of {@link HtmlComponent}s, or {@code null}
+	 */
+	List<HtmlComponent> getHtmlComponents() {
+		return htmlComponents;
+	}
+
+	/**
+	 * Gets the x coord of the left edge of every line.
+	 * @return the x margin
+	 */
+	int getXMargin() {
+		return X_MARGIN;
+	}
+
+	/**
+	 * Gets the y coord of the top of the first line.
+	 * @return the y margin
+	 */
+	int getYMargin() {
+		return Y_MARGIN;
 	}
 
 	/**
@@ -55,20 +275,34 @@ public class HtmlCanvas extends JPanel {
 		drawLineMark = false;
 	}
 
+	/**
+	 * Tests if this {@code HtmlCanvas}'s line mark is shown.
+	 * @return true if shown, false otherwise
+	 */
+	public boolean isLineMarkShown() {
+		return drawLineMark;
+	}
+
+	/**
+	 * Gets the x coord of this {@code HtmlCanvas}'s line mark, whether or
+	 * not it is shown.
+	 * @return the x coord of the mark
+	 */
+	public int getLineMarkX() {
+		return lineMarkX;
+	}
+
 	/**
 	 * Gets the total height of all the lines.
 	 * @return the total height of the lines
 	 */
 	public int getCanvasHeight() {
-		int height = 0;
 		if (htmlComponents == null)
 			return 0;
-		try {
-			for (HtmlComponent component : htmlComponents)
-				if (component instanceof HtmlTag)
-					height += component.getHtmlComponentHeight();
-		} catch (ConcurrentModificationException e) {}
-		return height + 2 * Y_MARGIN;
+		synchronized (extents) {
+			measure();
+			return extents.height + 2 * Y_MARGIN;
+		}
 	}
 
 	/**
@@ -76,19 +310,61 @@ public class HtmlCanvas extends JPanel {
 	 * @return the width of the widest line
 	 */
 	public int getCanvasWidth() {
-		int width = 0;
-		int tempWidth = 0;
 		if (htmlComponents == null)
 			return 0;
+		synchronized (extents) {
+			measure();
+			return extents.width + 2 * X_MARGIN;
+		}
+	}
+
+	/**
+	 * Brings {@link #extents} up to date with the components, measuring only
+	 * those appended since they were last measured unless the revision has
+	 * changed. Must hold the lock on {@code extents}.
+	 */
+	private void measure() {
+		int size = htmlComponents.size();
+		if (extents.revision != revision || extents.count > size) {
+			extents.revision = revision;
+			extents.count = 0;
+			extents.height = 0;
+			extents.width = 0;
+			extents.lineWidth = 0;
+		}
 		try {
-			for (HtmlComponent component : htmlComponents)
+			for (; extents.count < size; extents.count++) {
+				HtmlComponent component = htmlComponents.get(extents.count);
+				if (component == null)
+					break; // Cleared while measuring
+				if (component.isLineEnd())
+					extents.height += component.getHtmlComponentHeight();
 				if (isBreak(component)) {
-					width = Math.max(width, tempWidth);
-					tempWidth = 0;
+					extents.width = Math.max(extents.width,
+						extents.lineWidth);
+					extents.lineWidth = 0;
 				}
-				else tempWidth += component.getHtmlComponentWidth();
-		} catch (ConcurrentModificationException e) {}
-		return width + 2 * X_MARGIN;
+				else extents.lineWidth += component.getHtmlComponentWidth();
+			}
+		} catch (IndexOutOfBoundsException e) {} // Removed while measuring
+	}
+
+	/**
+	 * Repaints the band of the canvas between two y offsets, measured from the
+	 * top of the first line.
+	 *
+	 * @param top    the y offset of the top of the band
+	 * @param bottom the y offset of the bottom of the band, or
+	 *  {@link Integer#MAX_VALUE} to repaint to the bottom of the canvas
+	 */
+	public void repaintLines(int top, int bottom) {
+		int y = Y_MARGIN + top;
+		int height = bottom == Integer.MAX_VALUE ? getHeight() - y :
+			bottom - top;
+		// Swing clips the region to the bounds, so the widest line need not
+		// be measured
+		if (height > 0)
+			repaint(0, y, super.getWidth(), height);
 	}
 
 	@Override
@@ -107,84 +383,307 @@ public class HtmlCanvas extends JPanel {
 	 * @return           true if break, false otherwise
 	 */
 	private boolean isBreak(HtmlComponent component) {
-		return component instanceof HtmlTag &&
-			((HtmlTag)component).getTag().equals("br");
+		return component.getKind() == HtmlComponent.Kind.BREAK;
 	}
 
 	@Override
 	public void paintComponent(Graphics g) {
+		long start = System.nanoTime();
 		super.paintComponent(g);
-		setBackground(Color.WHITE);
-		// Turn on font aliasing (smoothing)
-		((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-			RenderingHints.VALUE_ANTIALIAS_ON);
-		if (htmlComponents != null)
-			drawHtmlComponents(g);
+		HtmlRenderingProfile profile = scrolling ? HtmlRenderingProfile.SPEED :
+			renderingProfile;
+		profile.apply((Graphics2D)g);
+		int width = getWidth();
+		clipBounds.setBounds(0, 0, width, getHeight());
+		g.getClipBounds(clipBounds);
+		if (htmlComponents != null && (tilePrefetcher == null ||
+			!tilePrefetcher.drawTiles(g)))
+			drawHtmlComponents(g, 0, Y_MARGIN, clipBounds,
+				width - X_MARGIN);
+		if (selection != null && htmlComponents != null)
+			selection.paint((Graphics2D)g, clipBounds);
 		if (drawLineMark)
 			drawLineMark(g, lineMarkX);
+
+		long frameNanos = System.nanoTime() - start;
+		profileFrames[profile.ordinal()]++;
+		profileFrameNanos[profile.ordinal()] += frameNanos;
+		if (tilePrefetcher != null)
+			tilePrefetcher.recordFrame(frameNanos);
 	}
 
 	/**
-	 * Draws all the {@link HtmlComponent}s onto the window.
-	 * @param g the {@link Graphics} component
+	 * Visits every {@link HtmlComponent} with the position it is drawn at, in
+	 * order. The components are not copied first, so call it on the thread
+	 * that prints them.
+	 * @param visitor the {@link LayoutVisitor} to call
 	 */
-	private void drawHtmlComponents(Graphics g) {
+	public void layOut(LayoutVisitor visitor) {
+		if (htmlComponents == null)
+			return;
 		int xLoc = X_MARGIN;
 		int yLoc = Y_MARGIN;
+		for (int i = 0, size = htmlComponents.size(); i < size; i++) {
+			HtmlComponent component = htmlComponents.get(i);
+			visitor.visit(component, xLoc, yLoc);
+			if (component.isLineEnd()) {
+				xLoc = X_MARGIN;
+				yLoc += component.getHtmlComponentHeight();
+			} else xLoc += component.getAdvance();
+		}
+	}
 
+	/**
+	 * Paints the whole canvas into a new image, without needing a window.
+	 * @return the image
+	 */
+	public BufferedImage toImage() {
+		BufferedImage image = new BufferedImage(getWidth(), getHeight(),
+			BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
 		try {
-			for (HtmlComponent component : htmlComponents) {
-				g.setColor(component.getColor());
-				if (component instanceof HtmlTag) {
-					xLoc = Y_MARGIN;
-					drawTag(g, (HtmlTag)component, yLoc);
-					yLoc += component.getHtmlComponentHeight();
-				} else if (component instanceof HtmlFragment) {
-					drawFragment(g, (HtmlFragment)component, xLoc, yLoc);
+			g.setClip(0, 0, image.getWidth(), image.getHeight());
+			paintComponent(g);
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	/**
+	 * Sets the {@link HtmlRenderingProfile} to paint with. The default is
+	 * {@link HtmlRenderingProfile#QUALITY}.
+	 * @param renderingProfile the profile
+	 */
+	public void setRenderingProfile(HtmlRenderingProfile renderingProfile) {
+		this.renderingProfile = renderingProfile;
+		contentsChanged(); // Tiles were rendered with the old profile
+		repaint();
+	}
+
+	/**
+	 * Gets the {@link HtmlRenderingProfile} this canvas paints with when it is
+	 * not scrolling.
+	 * @return the profile
+	 */
+	public HtmlRenderingProfile getRenderingProfile() {
+		return renderingProfile;
+	}
+
+	/**
+	 * Sets whether to paint with {@link HtmlRenderingProfile#SPEED} while the
+	 * canvas is being scrolled, and to repaint with the chosen profile once
+	 * scrolling stops.
+	 * @param adaptiveRendering whether to enable adaptive rendering
+	 */
+	public void setAdaptiveRendering(boolean adaptiveRendering) {
+		this.adaptiveRendering = adaptiveRendering;
+		if (!adaptiveRendering && scrolling) {
+			scrollIdleTimer.stop();
+			scrolling = false;
+			repaint();
+		}
+	}
+
+	/**
+	 * Gets the mean time spent painting a frame with a
+	 * {@link HtmlRenderingProfile}.
+	 * @param  profile the profile
+	 * @return         the mean frame time in milliseconds, or 0 if no frames
+	 *  have been painted with it
+	 */
+	public double getMeanFrameMillis(HtmlRenderingProfile profile) {
+		long frames = profileFrames[profile.ordinal()];
+		return frames == 0 ? 0 :
+			profileFrameNanos[profile.ordinal()] / 1e6 / frames;
+	}
+
+	/**
+	 * Gets the number of frames painted so far, with any profile.
+	 * @return the number of frames
+	 */
+	long getFramesPainted() {
+		long frames = 0;
+		for (long profileFrameCount : profileFrames)
+			frames += profileFrameCount;
+		return frames;
+	}
+
+	/**
+	 * Draws the components, without the line mark, onto an offscreen tile.
+	 * May be called from any thread.
+	 * @param g    the {@link Graphics2D} of the tile, translated so that the
+	 *  tile's region is at its canvas coords
+	 * @param tile the region of the canvas the tile covers
+	 */
+	void drawTile(Graphics2D g, Rectangle tile) {
+		g.setColor(getBackground());
+		g.fill(tile);
+		renderingProfile.apply(g);
+		if (htmlComponents != null)
+			drawHtmlComponents(g, 0, Y_MARGIN, tile, getWidth() - X_MARGIN);
+	}
+
+	/**
+	 * Draws the lines from a given component down to a y offset, without the
+	 * margins, so that the top of the first line is at y 0 and the left edge
+	 * of the text at x 0. Used to print a page without laying out the lines
+	 * before it.
+	 * @param g      the {@link Graphics2D} to draw with
+	 * @param from   the index of the first component of the first line
+	 * @param top    the y offset of the first line, measured from the top of
+	 *  the first line of the canvas
+	 * @param bottom the y offset to stop drawing lines at
+	 * @param width  the width of the page, which horizontal rules span
+	 */
+	void drawLines(Graphics2D g, int from, int top, int bottom, int width) {
+		if (htmlComponents == null)
+			return;
+		int xOffset = -X_MARGIN;
+		int yOffset = -Y_MARGIN - top;
+		g.translate(xOffset, yOffset);
+		try {
+			drawHtmlComponents(g, from, Y_MARGIN + top, new Rectangle(
+				Integer.MIN_VALUE / 2, Y_MARGIN + top, Integer.MAX_VALUE,
+				bottom - top), X_MARGIN / 2 + width);
+		} finally {
+			g.translate(-xOffset, -yOffset);
+		}
+	}
+
+	/**
+	 * Draws the {@link HtmlComponent}s in a region onto the window. Text
+	 * entirely outside the region is skipped. The {@code Color} and
+	 * {@code Font} of the {@link Graphics} are only changed when they differ
+	 * from those of the previous component.
+	 *
+	 * @param g         the {@link Graphics} component
+	 * @param from      the index of the first component of a line to start at
+	 * @param yLoc      the y coord of that line
+	 * @param region    the region to draw
+	 * @param ruleWidth the width of horizontal rules
+	 */
+	private void drawHtmlComponents(Graphics g, int from, int yLoc,
+		Rectangle region, int ruleWidth) {
+		int xLoc = X_MARGIN;
+		int left = region.x;
+		int right = region.x + region.width;
+		int top = region.y;
+		int bottom = region.y + region.height;
+		Color currentColor = null;
+		Font currentFont = null;
+
+		try {
+			for (int i = from, size = htmlComponents.size(); i < size &&
+				yLoc < bottom; i++) {
+				HtmlComponent component = htmlComponents.get(i);
+				if (component == null)
+					break; // Cleared while drawing
+				if (component.getKind() == HtmlComponent.Kind.OTHER)
+					continue; // Draws nothing and takes no room
+				if (yLoc + component.getHtmlComponentHeight() <= top) {
+					// Above the region; only advance
+					if (component.isLineEnd()) {
+						xLoc = X_MARGIN;
+						yLoc += component.getHtmlComponentHeight();
+					} else xLoc += component.getHtmlComponentWidth();
+					continue;
+				}
+				if (!component.isLineEnd() && isBeside(component, xLoc, left,
+					right)) {
 					xLoc += component.getHtmlComponentWidth();
+					continue;
+				}
+				Color color = component.getColor();
+				if (!Objects.equals(color, currentColor)) {
+					g.setColor(color);
+					currentColor = color;
+				}
+				switch (component.getKind()) {
+					case TEXT:
+						HtmlFragment htmlFragment = (HtmlFragment)component;
+						Font font = htmlFragment.getFont();
+						if (font != currentFont && !font.equals(currentFont)) {
+							g.setFont(font);
+							currentFont = font;
+						}
+						drawFragment(g, htmlFragment, xLoc, yLoc, left, right);
+						xLoc += component.getHtmlComponentWidth();
+						break;
+					case HORIZONTAL_RULE:
+						drawHorizontalRule(g, yLoc, ruleWidth);
+						xLoc = X_MARGIN;
+						yLoc += component.getHtmlComponentHeight();
+						break;
+					default:
+						xLoc = X_MARGIN;
+						yLoc += component.getHtmlComponentHeight();
+						break;
 				}
 			}
-		} catch (ConcurrentModificationException e) {}
+		} catch (IndexOutOfBoundsException e) {} // Removed while drawing
+	}
+
+	/**
+	 * Tests if a component lies entirely to the left or right of a region.
+	 * Glyphs may overhang their advance a little, so a component is only
+	 * beside the region once it is more than its height away.
+	 * @param  component the {@link HtmlComponent} to test
+	 * @param  xLoc      the x coord of the component
+	 * @param  left      the x coord of the left of the region
+	 * @param  right     the x coord of the right of the region
+	 * @return           true if beside the region, false otherwise
+	 */
+	private boolean isBeside(HtmlComponent component, int xLoc, int left,
+		int right) {
+		int slack = component.getHtmlComponentHeight();
+		return xLoc - slack >= right ||
+			xLoc + component.getHtmlComponentWidth() + slack <= left;
 	}
 
 	/**
 	 * Draws text onto the screen defined by an htmlFragment at a specific xLoc
-	 * and yLoc.
+	 * and yLoc, with the {@code Font} of the {@link Graphics} already set.
+	 * Long text that can be is drawn in pieces, straight from its characters,
+	 * and only the pieces between the left and right of the region being
+	 * drawn are drawn.
 	 * @param g            the {@link Graphics} component
 	 * @param htmlFragment the {@link HtmlFragment} to draw
 	 * @param xLoc         the current x location to draw from
 	 * @param yLoc         the current y location to draw from
+	 * @param left         the x coord of the left of the region to draw
+	 * @param right        the x coord of the right of the region to draw
 	 */
 	private void drawFragment(Graphics g, HtmlFragment htmlFragment, int xLoc,
-		int yLoc) {
-		g.setFont(htmlFragment.getFont());
-		g.drawString(htmlFragment.getText(), xLoc, yLoc +
-			htmlFragment.getAscent());
-	}
+		int yLoc, int left, int right) {
+		int baseline = yLoc + htmlFragment.getAscent();
+		int[] chunkXs = htmlFragment.getChunkXs();
+		if (chunkXs == null) {
+			g.drawString(htmlFragment.getText(), xLoc, baseline);
+			return;
+		}
+		char[] chars = htmlFragment.getChars();
 
-	/**
-	 * Draws a special (non-text) {@link HtmlComponent} at a specific xLoc.
-	 * @param  g        the {@link Graphics} component
-	 * @param  htmlTag  the {@link HtmlTag} to draw
-	 * @param  yLoc     the current y location to draw from
-	 */
-	private void drawTag(Graphics g, HtmlTag htmlTag, int yLoc) {
-		switch (htmlTag.getTag()) {
-			case "hr":
-				drawHorizontalRule(g, yLoc);
-				break;
-			case "br":
-				break;
+		int slack = htmlFragment.getHtmlComponentHeight();
+		int chunk = Arrays.binarySearch(chunkXs, left - slack - xLoc);
+		if (chunk < 0)
+			chunk = Math.max(0, -chunk - 2); // The chunk containing left
+		for (; chunk < chunkXs.length && xLoc + chunkXs[chunk] - slack < right;
+			chunk++) {
+			int start = chunk * HtmlFragment.CHUNK_LENGTH;
+			g.drawChars(chars, start, Math.min(chars.length - start,
+				HtmlFragment.CHUNK_LENGTH), xLoc + chunkXs[chunk], baseline);
 		}
 	}
 
 	/**
 	 * Draws a horizontal rule.
-	 * @param  g    the {@link Graphics} component
-	 * @param  yLoc the current y location for printing
+	 * @param  g     the {@link Graphics} component
+	 * @param  yLoc  the current y location for printing
+	 * @param  width the width of the rule
 	 */
-	private void drawHorizontalRule(Graphics g, int yLoc) {
-		g.fillRect(X_MARGIN / 2, yLoc + 3, getWidth() - X_MARGIN, 2);
+	private void drawHorizontalRule(Graphics g, int yLoc, int width) {
+		g.fillRect(X_MARGIN / 2, yLoc + 3, width, 2);
 	}
 
 	/**
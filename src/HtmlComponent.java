@@ -1,5 +1,7 @@
 import java.awt.Color;
 
+import java.util.Objects;
+
 /**
  * An abstract class that can be drawn by a {@link HtmlCanvas}. Every
  * {@code HtmlComponent} must have a {@link Color}, width, and height in order
@@ -15,6 +17,60 @@ import java.awt.Color;
  */
 public abstract class HtmlComponent {
 
+	/**
+	 * The kinds of {@code HtmlComponent}, so that a {@link HtmlCanvas} can
+	 * draw components without testing their class or comparing tag names.
+	 */
+	public enum Kind {
+		/**
+		 * A {@link HtmlFragment} of text.
+		 */
+		TEXT,
+
+		/**
+		 * A {@code <br>} {@link HtmlTag}.
+		 */
+		BREAK,
+
+		/**
+		 * A {@code <hr>} {@link HtmlTag}.
+		 */
+		HORIZONTAL_RULE,
+
+		/**
+		 * Any other {@link HtmlTag}, which ends the line but draws nothing.
+		 */
+		TAG,
+
+		/**
+		 * Any other {@code HtmlComponent}, which draws nothing and neither
+		 * ends the line nor moves the components after it.
+		 */
+		OTHER;
+
+		/**
+		 * Returns the kind of a {@link HtmlTag}.
+		 *
+		 * @param  tag The HTML tag
+		 * @return The kind
+		 */
+		public static Kind forTag(String tag) {
+			switch (tag) {
+				case "br":
+					return BREAK;
+				case "hr":
+					return HORIZONTAL_RULE;
+				default:
+					return TAG;
+			}
+		}
+	}
+
+	/**
+	 * The {@link Kind} of this component.
+	 */
+	private final Kind kind;
+
 	/**
 	 * The {@link Color} to render with.
 	 */
@@ -32,7 +88,8 @@ public abstract class HtmlComponent {
 
 	/**
 	 * A constructor for the {@code HtmlComponent} with the color, width, and
-	 * height of the component.
+	 * height of the component. It is of {@link Kind#OTHER}, so it is not
+	 * drawn and takes no room on its line.
 	 *
 	 * @param  color               the {@link Color} of this component
 	 * @param  htmlComponentWidth  the width in pixels of this component
@@ -40,11 +97,55 @@ public abstract class HtmlComponent {
 	 */
 	public HtmlComponent(Color color, int htmlComponentWidth,
 		int htmlComponentHeight) {
+		this(Kind.OTHER, color, htmlComponentWidth, htmlComponentHeight);
+	}
+
+	/**
+	 * A constructor for the {@code HtmlComponent} with the kind, color, width,
+	 * and height of the component.
+	 *
+	 * @param  kind                the {@link Kind} of this component
+	 * @param  color               the {@link Color} of this component
+	 * @param  htmlComponentWidth  the width in pixels of this component
+	 * @param  htmlComponentHeight the height in pixels of this component
+	 */
+	public HtmlComponent(Kind kind, Color color, int htmlComponentWidth,
+		int htmlComponentHeight) {
+		this.kind = kind;
 		this.color = color;
 		this.htmlComponentWidth = htmlComponentWidth;
 		this.htmlComponentHeight = htmlComponentHeight;
 	}
 
+	/**
+	 * Returns the {@code Kind} of this {@code HtmlComponent}.
+	 *
+	 * @return The {@code Kind}
+	 */
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * Tests if this {@code HtmlComponent} ends a line, which every kind other
+	 * than {@link Kind#TEXT} and {@link Kind#OTHER} does.
+	 *
+	 * @return true if it ends a line, false otherwise
+	 */
+	public boolean isLineEnd() {
+		return kind != Kind.TEXT && kind != Kind.OTHER;
+	}
+
+	/**
+	 * Returns how far along its line this {@code HtmlComponent} moves the
+	 * next one, which is its width if it is text and 0 otherwise.
+	 *
+	 * @return The distance, in pixels
+	 */
+	public int getAdvance() {
+		return kind == Kind.TEXT ? htmlComponentWidth : 0;
+	}
+
 	/**
 	 * Returns the {@code Color} that this {@code HtmlComponent} uses to render
 	 * its text.
@@ -72,4 +173,29 @@ public abstract class HtmlComponent {
 	public int getHtmlComponentHeight() {
 		return this.htmlComponentHeight;
 	}
+
+	/**
+	 * Tests if another object is an {@code HtmlComponent} of the same class
+	 * that would be drawn identically.
+	 *
+	 * @param  other The object to compare to
+	 * @return true if equal, false otherwise
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (other == null || other.getClass() != getClass())
+			return false;
+		HtmlComponent component = (HtmlComponent)other;
+		return htmlComponentWidth == component.htmlComponentWidth &&
+			htmlComponentHeight == component.htmlComponentHeight &&
+			Objects.equals(color, component.color);
+	}
+
+	@Override
+	public int hashCode() {
+		return (Objects.hashCode(color) * 31 + htmlComponentWidth) * 31 +
+			htmlComponentHeight;
+	}
 }
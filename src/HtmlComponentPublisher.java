@@ -0,0 +1,662 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the {@link HtmlComponent}s appended to a {@link HtmlPrinter} to
+ * subscribers such as indexers and mirrors, so that they need not poll
+ * {@link HtmlPrinter#getHtmlComponents}. Subscribe with
+ * {@link HtmlPrinter#subscribe}.
+ *
+ * <p>Subscriptions follow the rules of reactive streams: a
+ * {@link Subscriber} is sent no more {@link Batch}es than it has requested,
+ * and its methods are called one at a time, on an {@code Executor} rather
+ * than the printing thread. Components are gathered into a batch until the
+ * printer draws or {@link #MAX_BATCH_SIZE} have been appended, and each
+ * batch is numbered in order.
+ *
+ * <p>Every batch replaces {@link Batch#getRemoved} components from its start
+ * with its own components, so applying the batches in order to a list keeps
+ * it a copy of the printer's. Appended batches remove nothing, while batches
+ * for the lines changed by {@link HtmlPrinter#update} or rolled back by
+ * {@link HtmlPrinter#rollback} remove the old components; such a batch may
+ * be empty.
+ *
+ * <p>Every subscriber has its own bounded buffer of batches. When a
+ * subscriber falls so far behind that its buffer is full, rather than make
+ * the printer wait, its buffered batches and any published until the
+ * printer next draws are collapsed into a single {@link Batch#isResync
+ * resync} batch that replaces every component from the earliest one they
+ * changed on. The batches left out show as a gap in the sequence numbers.
+ *
+ * @since October 19th, 2026
+ * @see HtmlPrinter#subscribe
+ */
+public class HtmlComponentPublisher {
+
+	/**
+	 * Receives the batches of a subscription. Its methods are never called
+	 * concurrently.
+	 */
+	public interface Subscriber {
+		/**
+		 * Called first, with the subscription to request batches from.
+		 *
+		 * @param subscription The {@code Subscription}
+		 */
+		void onSubscribe(Subscription subscription);
+
+		/**
+		 * Called with each requested batch, in order.
+		 *
+		 * @param batch The {@code Batch}
+		 */
+		void onNext(Batch batch);
+
+		/**
+		 * Called if the subscription fails, such as when {@link #onNext}
+		 * throws. No further methods are called.
+		 *
+		 * @param error The cause
+		 */
+		void onError(Throwable error);
+
+		/**
+		 * Called once every batch has been delivered after the publisher is
+		 * closed. No further methods are called.
+		 */
+		void onComplete();
+	}
+
+	/**
+	 * A link between the publisher and a {@link Subscriber}.
+	 */
+	public interface Subscription {
+		/**
+		 * Requests more batches.
+		 *
+		 * @param count The number of batches, which must be positive
+		 */
+		void request(long count);
+
+		/**
+		 * Stops sending batches, possibly after one more.
+		 */
+		void cancel();
+	}
+
+	/**
+	 * A run of appended components, numbered in the order batches were
+	 * published.
+	 */
+	public static final class Batch {
+
+		/**
+		 * The sequence number of the batch.
+		 */
+		private final long sequence;
+
+		/**
+		 * The index in the printer's list of the first component.
+		 */
+		private final int start;
+
+		/**
+		 * The number of components replaced, or -1 for every component from
+		 * the start on.
+		 */
+		private final int removed;
+
+		/**
+		 * The components.
+		 */
+		private final List<HtmlComponent> htmlComponents;
+
+		/**
+		 * Constructs a {@code Batch}.
+		 *
+		 * @param  sequence       The sequence number
+		 * @param  start          The index of the first component
+		 * @param  removed        The number of components replaced, or -1
+		 *  for every component from the start on
+		 * @param  htmlComponents The components
+		 */
+		private Batch(long sequence, int start, int removed,
+			List<HtmlComponent> htmlComponents) {
+			this.sequence = sequence;
+			this.start = start;
+			this.removed = removed;
+			this.htmlComponents = htmlComponents;
+		}
+
+		/**
+		 * Returns the sequence number of this batch. Batches are numbered
+		 * from 0, so a subscriber has missed batches if a number is skipped;
+		 * a resync batch has the number of the last batch it covers.
+		 *
+		 * @return The sequence number
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * Returns the index in the printer's list of the first component.
+		 *
+		 * @return The index
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * Returns the number of components replaced from the start, which is
+		 * 0 for appended components. It is meaningless for a resync batch.
+		 *
+		 * @return The number of components
+		 */
+		public int getRemoved() {
+			return Math.max(0, removed);
+		}
+
+		/**
+		 * Tests if this batch replaces every component from its start on,
+		 * because the batches before it were collapsed into it. It may hold
+		 * more than {@link #MAX_BATCH_SIZE} components.
+		 *
+		 * @return true if it is a resync batch, false otherwise
+		 */
+		public boolean isResync() {
+			return removed < 0;
+		}
+
+		/**
+		 * Returns the index in the printer's list after the last component.
+		 *
+		 * @return The index
+		 */
+		public int getEnd() {
+			return start + htmlComponents.size();
+		}
+
+		/**
+		 * Applies this batch to a copy of the printer's list.
+		 *
+		 * @param list The {@code List} the previous batches were applied to
+		 */
+		public void applyTo(List<HtmlComponent> list) {
+			list.subList(start, isResync() ? list.size() :
+				start + removed).clear();
+			list.addAll(start, htmlComponents);
+		}
+
+		/**
+		 * Returns the components, which cannot be modified.
+		 *
+		 * @return The {@code List} of {@code HtmlComponent}s
+		 */
+		public List<HtmlComponent> getHtmlComponents() {
+			return htmlComponents;
+		}
+
+		@Override
+		public String toString() {
+			return "Batch[sequence=" + sequence + ", start=" + start +
+				", removed=" + (isResync() ? "all" : removed) + ", size=" +
+				htmlComponents.size() + "]";
+		}
+	}
+
+	/**
+	 * The default number of batches buffered for each subscriber.
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/**
+	 * The largest number of components in a batch.
+	 */
+	public static final int MAX_BATCH_SIZE = 1024;
+
+	/**
+	 * The printer's list of components, read to build resync batches.
+	 */
+	private final List<HtmlComponent> htmlComponents;
+
+	/**
+	 * The current subscriptions.
+	 */
+	private final List<BufferedSubscription> subscriptions =
+		new CopyOnWriteArrayList<BufferedSubscription>();
+
+	/**
+	 * The components of the batch being gathered, or {@code null} if there
+	 * is none, the index of its first component and the number of published
+	 * components it replaces.
+	 */
+	private List<HtmlComponent> batch;
+	private int batchStart;
+	private int batchRemoved;
+
+	/**
+	 * The sequence number of the next batch.
+	 */
+	private long nextSequence;
+
+	/**
+	 * Whether the publisher has been closed.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * The number of batches collapsed into resync batches for slow
+	 * subscribers.
+	 */
+	private final AtomicLong droppedBatches = new AtomicLong();
+
+	/**
+	 * Constructs a {@code HtmlComponentPublisher}. Only {@link HtmlPrinter}
+	 * publishes components.
+	 *
+	 * @param  htmlComponents The printer's list of components
+	 */
+	HtmlComponentPublisher(List<HtmlComponent> htmlComponents) {
+		this.htmlComponents = htmlComponents;
+	}
+
+	/**
+	 * Subscribes to the components appended from the next batch on, with
+	 * the default buffer capacity, calling the {@code Subscriber} on the
+	 * common {@code ForkJoinPool}.
+	 *
+	 * @param subscriber The {@code Subscriber}
+	 */
+	public void subscribe(Subscriber subscriber) {
+		subscribe(subscriber, ForkJoinPool.commonPool(), DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Subscribes to the components appended from the next batch on.
+	 *
+	 * @param  subscriber The {@code Subscriber}
+	 * @param  executor   The {@code Executor} to call the subscriber on
+	 * @param  capacity   The number of batches to buffer before collapsing
+	 *  them into a resync batch
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public void subscribe(Subscriber subscriber, Executor executor,
+		int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Bad capacity " + capacity);
+		BufferedSubscription subscription =
+			new BufferedSubscription(subscriber, executor, capacity);
+		subscriptions.add(subscription);
+		if (closed) {
+			subscriptions.remove(subscription);
+			subscription.complete();
+		} else subscription.signal();
+	}
+
+	/**
+	 * Returns the number of current subscriptions.
+	 *
+	 * @return The number of subscriptions
+	 */
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+	/**
+	 * Returns the number of batches collapsed into resync batches because a
+	 * subscriber's buffer was full.
+	 *
+	 * @return The number of batches
+	 */
+	public long getDroppedBatches() {
+		return droppedBatches.get();
+	}
+
+	/**
+	 * Tests if there are any subscriptions.
+	 *
+	 * @return true if there are, false otherwise
+	 */
+	boolean hasSubscribers() {
+		return !subscriptions.isEmpty();
+	}
+
+	/**
+	 * Adds an appended component to the batch being gathered, publishing the
+	 * batch if it is full. Called on the printing thread.
+	 *
+	 * @param index     The index of the component in the printer's list
+	 * @param component The {@code HtmlComponent}
+	 */
+	void append(int index, HtmlComponent component) {
+		if (subscriptions.isEmpty())
+			return;
+		if (batch != null && index != batchStart + batch.size())
+			publish();
+		if (batch == null) {
+			batch = new ArrayList<HtmlComponent>();
+			batchStart = index;
+			batchRemoved = 0;
+		}
+		batch.add(component);
+		if (batch.size() == MAX_BATCH_SIZE)
+			publish();
+	}
+
+	/**
+	 * Notes that a range of components has been removed; any replacements
+	 * are then {@link #append appended} from its start. The batch being
+	 * gathered takes in the range if they overlap or touch. Called on the
+	 * printing thread.
+	 *
+	 * @param start   The index of the first component removed
+	 * @param removed The number of components removed
+	 */
+	void replace(int start, int removed) {
+		if (subscriptions.isEmpty() || removed == 0)
+			return;
+		if (batch != null) {
+			int end = batchStart + batch.size();
+			if (start <= end && start + removed >= batchStart) {
+				// Whatever the range covers outside the batch is published
+				List<HtmlComponent> kept = new ArrayList<HtmlComponent>(
+					batch.subList(0, Math.max(0, start - batchStart)));
+				kept.addAll(batch.subList(Math.min(batch.size(),
+					Math.max(0, start + removed - batchStart)), batch.size()));
+				batchRemoved += Math.max(0, batchStart - start) +
+					Math.max(0, start + removed - end);
+				batchStart = Math.min(start, batchStart);
+				batch = kept;
+				return;
+			}
+			publish();
+		}
+		batch = new ArrayList<HtmlComponent>();
+		batchStart = start;
+		batchRemoved = removed;
+	}
+
+	/**
+	 * Publishes the batch being gathered, if any, then the resync batches of
+	 * subscribers that fell behind. Called on the printing thread whenever
+	 * every change to the printer's list has been gathered.
+	 */
+	void flush() {
+		publish();
+		for (BufferedSubscription subscription : subscriptions)
+			subscription.resync();
+	}
+
+	/**
+	 * Publishes the batch being gathered, if any.
+	 */
+	private void publish() {
+		if (batch == null)
+			return;
+		if (!batch.isEmpty() || batchRemoved != 0) {
+			Batch next = new Batch(nextSequence++, batchStart, batchRemoved,
+				Collections.unmodifiableList(batch));
+			for (BufferedSubscription subscription : subscriptions)
+				subscription.offer(next);
+		}
+		batch = null;
+	}
+
+	/**
+	 * Publishes the batch being gathered and completes every subscription
+	 * once its buffered batches have been delivered. Called on the printing
+	 * thread.
+	 */
+	void close() {
+		flush();
+		closed = true;
+		for (BufferedSubscription subscription : subscriptions) {
+			subscriptions.remove(subscription);
+			subscription.complete();
+		}
+	}
+
+	/**
+	 * A subscription with its own buffer of batches, delivered on an
+	 * {@code Executor} by one task at a time.
+	 */
+	private class BufferedSubscription implements Subscription, Runnable {
+
+		/**
+		 * The {@code Subscriber} to deliver to.
+		 */
+		private final Subscriber subscriber;
+
+		/**
+		 * The {@code Executor} to deliver on.
+		 */
+		private final Executor executor;
+
+		/**
+		 * The largest number of batches buffered.
+		 */
+		private final int capacity;
+
+		/**
+		 * The batches not yet delivered, oldest first.
+		 */
+		private final ArrayDeque<Batch> buffer = new ArrayDeque<Batch>();
+
+		/**
+		 * The index of the first component changed by the batches left out
+		 * since the buffer filled, or -1 if none have been, and the sequence
+		 * number of the last of them.
+		 */
+		private int resyncStart = -1;
+		private long resyncSequence;
+
+		/**
+		 * The number of batches requested and not yet delivered.
+		 */
+		private long demand;
+
+		/**
+		 * Whether {@link Subscriber#onSubscribe} has been called, whether the
+		 * subscription has been completed, and the error to signal, if any.
+		 */
+		private boolean subscribed;
+		private boolean completed;
+		private Throwable error;
+
+		/**
+		 * Whether the subscription has been cancelled or has finished.
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * The number of signals not yet handled by a delivery task.
+		 */
+		private final AtomicInteger pending = new AtomicInteger();
+
+		/**
+		 * Constructs a {@code BufferedSubscription}.
+		 *
+		 * @param  subscriber The {@code Subscriber}
+		 * @param  executor   The {@code Executor} to deliver on
+		 * @param  capacity   The largest number of batches buffered
+		 */
+		BufferedSubscription(Subscriber subscriber, Executor executor,
+			int capacity) {
+			this.subscriber = subscriber;
+			this.executor = executor;
+			this.capacity = capacity;
+		}
+
+		@Override
+		public void request(long count) {
+			synchronized (this) {
+				if (count <= 0)
+					error = new IllegalArgumentException("Bad request " +
+						count);
+				else demand = demand + count < 0 ? Long.MAX_VALUE :
+					demand + count;
+			}
+			signal();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			subscriptions.remove(this);
+			synchronized (this) {
+				buffer.clear();
+			}
+		}
+
+		/**
+		 * Buffers a batch. If the buffer is full, or the subscriber is
+		 * already waiting for a resync batch, the buffered batches and this
+		 * one are left out, to be covered by the next {@link #resync}.
+		 *
+		 * @param batch The {@code Batch}
+		 */
+		void offer(Batch batch) {
+			if (cancelled)
+				return;
+			synchronized (this) {
+				if (resyncStart < 0 && buffer.size() < capacity) {
+					buffer.add(batch);
+				} else {
+					int start = resyncStart < 0 ? batch.getStart() :
+						Math.min(resyncStart, batch.getStart());
+					for (Batch buffered : buffer)
+						start = Math.min(start, buffered.getStart());
+					droppedBatches.addAndGet(buffer.size() + 1);
+					buffer.clear();
+					resyncStart = start;
+					resyncSequence = batch.getSequence();
+					return;
+				}
+			}
+			signal();
+		}
+
+		/**
+		 * Buffers a resync batch of the printer's components from the first
+		 * one changed by the batches left out, if any were. Called on the
+		 * printing thread, only when every change has been published.
+		 */
+		void resync() {
+			synchronized (this) {
+				if (resyncStart < 0)
+					return;
+				int start = Math.min(resyncStart, htmlComponents.size());
+				buffer.add(new Batch(resyncSequence, start, -1,
+					Collections.unmodifiableList(new ArrayList<HtmlComponent>(
+					htmlComponents.subList(start, htmlComponents.size())))));
+				resyncStart = -1;
+			}
+			signal();
+		}
+
+		/**
+		 * Completes the subscription once its buffer has been delivered.
+		 */
+		void complete() {
+			synchronized (this) {
+				completed = true;
+			}
+			signal();
+		}
+
+		/**
+		 * Starts a delivery task, unless one is already running.
+		 */
+		void signal() {
+			if (pending.getAndIncrement() != 0)
+				return;
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				cancel();
+			}
+		}
+
+		/**
+		 * Delivers batches while there is demand for them.
+		 */
+		@Override
+		public void run() {
+			int signals = pending.get();
+			do {
+				if (!deliver())
+					return; // Leaves pending non-zero, so no more tasks run
+				signals = pending.addAndGet(-signals);
+			} while (signals != 0);
+		}
+
+		/**
+		 * Calls the {@code Subscriber} with everything it can be sent now.
+		 *
+		 * @return false if the subscription has ended, true otherwise
+		 */
+		private boolean deliver() {
+			if (!subscribed) {
+				subscribed = true;
+				try {
+					subscriber.onSubscribe(this);
+				} catch (Throwable e) {
+					return fail(e);
+				}
+			}
+			while (!cancelled) {
+				Batch batch = null;
+				Throwable cause;
+				boolean finished = false;
+				synchronized (this) {
+					cause = error;
+					if (cause == null && buffer.isEmpty()) {
+						if (!completed)
+							return true;
+						finished = cancelled = true;
+					} else if (cause == null && demand > 0) {
+						batch = buffer.poll();
+						if (demand != Long.MAX_VALUE)
+							demand--;
+					}
+				}
+				if (cause != null)
+					return fail(cause);
+				if (finished) {
+					subscriber.onComplete();
+					return false;
+				}
+				if (batch == null)
+					return true; // Wait for more demand
+				try {
+					subscriber.onNext(batch);
+				} catch (Throwable e) {
+					return fail(e);
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Cancels the subscription and tells the {@code Subscriber} why.
+		 *
+		 * @param  cause The error
+		 * @return false
+		 */
+		private boolean fail(Throwable cause) {
+			cancel();
+			subscriber.onError(cause);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,410 @@
+import java.awt.Color;
+import java.awt.Font;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the {@link HtmlComponent}s of a {@link HtmlCanvas} to a stream as
+ * HTML or as SVG, for keeping rendered documents as files. The components
+ * are visited once, in order, and written as they are visited through a
+ * buffered channel, so memory use does not grow with the document.
+ *
+ * <p>HTML is written as a {@code <div>} for each line, holding a
+ * {@code <span>} of text for each fragment with its {@code Font} and
+ * {@code Color} as an inline style, and an {@code <hr>} for each horizontal
+ * rule. SVG is written as a {@code <text>} for each fragment at the position
+ * it is drawn at on the canvas. The style of each combination of
+ * {@code Font} and {@code Color} is formatted once and reused for as long as
+ * it is among the most recently used. A component without a {@code Color}
+ * is written in the last color used before it, as it is drawn.
+ *
+ * <p>The components are not copied before they are visited, so a canvas
+ * must be exported on the thread that prints to its {@link HtmlPrinter}, or
+ * while nothing prints to it.
+ *
+ * @since October 19th, 2026
+ * @see HtmlCanvas#layOut
+ */
+public class HtmlExporter {
+
+	/**
+	 * The size, in characters, of the output buffer.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The largest number of styles remembered.
+	 */
+	private static final int MAX_STYLES = 256;
+
+	/**
+	 * The {@code Writer} being written to.
+	 */
+	private final Writer out;
+
+	/**
+	 * Whether SVG is being written rather than HTML.
+	 */
+	private final boolean svg;
+
+	/**
+	 * The formatted style of each recent combination of {@code Font} and
+	 * {@code Color}, least recently used first.
+	 */
+	private final Map<List<Object>, String> styles =
+		new LinkedHashMap<List<Object>, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+				Map.Entry<List<Object>, String> eldest) {
+				return size() > MAX_STYLES;
+			}
+		};
+
+	/**
+	 * The last {@code Font} and {@code Color} styled, and their style.
+	 */
+	private Font lastFont;
+	private Color lastColor;
+	private String lastStyle;
+
+	/**
+	 * The last {@code Color} written, used for components without one.
+	 */
+	private Color currentColor = Color.BLACK;
+
+	/**
+	 * Whether a line of HTML has been started and not ended.
+	 */
+	private boolean lineOpen;
+
+	/**
+	 * The x coord of the left of a horizontal rule, relative to the left
+	 * margin for HTML and absolute for SVG, and its width for SVG.
+	 */
+	private final int ruleX;
+	private final int ruleWidth;
+
+	/**
+	 * Not instantiable outside this class.
+	 *
+	 * @param  out        The {@code Writer} to write to
+	 * @param  svg        Whether to write SVG rather than HTML
+	 * @param  htmlCanvas The {@code HtmlCanvas} being exported
+	 */
+	private HtmlExporter(Writer out, boolean svg, HtmlCanvas htmlCanvas) {
+		this.out = out;
+		this.svg = svg;
+		int xMargin = htmlCanvas.getXMargin();
+		ruleX = svg ? xMargin / 2 : -xMargin / 2;
+		ruleWidth = svg ? htmlCanvas.getWidth() - xMargin : 0;
+	}
+
+	/**
+	 * Writes the components of a canvas as an HTML document. The stream is
+	 * flushed but not closed. Call it on the thread that prints to the
+	 * canvas.
+	 *
+	 * @param  htmlCanvas The {@code HtmlCanvas} to export
+	 * @param  stream     The stream to write UTF-8 to
+	 * @throws IOException if writing fails
+	 */
+	public static void exportHtml(HtmlCanvas htmlCanvas, OutputStream stream)
+		throws IOException {
+		Writer out = newWriter(stream);
+		out.write("<!DOCTYPE html>\n<html>\n<head>\n" +
+			"<meta charset=\"utf-8\">\n</head>\n<body style=\"margin: " +
+			htmlCanvas.getYMargin() + "px " + htmlCanvas.getXMargin() +
+			"px; white-space: pre; background: #ffffff\">\n");
+		HtmlExporter exporter = new HtmlExporter(out, false, htmlCanvas);
+		try {
+			htmlCanvas.layOut((component, x, y) -> {
+				try {
+					exporter.writeHtml(component);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		exporter.endLine();
+		out.write("</body>\n</html>\n");
+		out.flush();
+	}
+
+	/**
+	 * Writes the components of a canvas as an SVG image the size of the
+	 * canvas. The stream is flushed but not closed. Call it on the thread
+	 * that prints to the canvas.
+	 *
+	 * @param  htmlCanvas The {@code HtmlCanvas} to export
+	 * @param  stream     The stream to write UTF-8 to
+	 * @throws IOException if writing fails
+	 */
+	public static void exportSvg(HtmlCanvas htmlCanvas, OutputStream stream)
+		throws IOException {
+		Writer out = newWriter(stream);
+		int width = htmlCanvas.getWidth();
+		int height = htmlCanvas.getHeight();
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width +
+			"\" height=\"" + height + "\" viewBox=\"0 0 " + width + " " +
+			height + "\">\n<rect width=\"100%\" height=\"100%\" " +
+			"fill=\"#ffffff\"/>\n");
+		HtmlExporter exporter = new HtmlExporter(out, true, htmlCanvas);
+		try {
+			htmlCanvas.layOut((component, x, y) -> {
+				try {
+					exporter.writeSvg(component, x, y);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		out.write("</svg>\n");
+		out.flush();
+	}
+
+	/**
+	 * Returns a buffered UTF-8 {@code Writer} over a channel of a stream.
+	 *
+	 * @param  stream The stream
+	 * @return The {@code Writer}
+	 */
+	private static Writer newWriter(OutputStream stream) {
+		return new BufferedWriter(Channels.newWriter(Channels.newChannel(
+			stream), StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE),
+			BUFFER_SIZE);
+	}
+
+	/**
+	 * Writes a component as HTML.
+	 *
+	 * @param  component The {@code HtmlComponent}
+	 * @throws IOException if writing fails
+	 */
+	private void writeHtml(HtmlComponent component) throws IOException {
+		switch (component.getKind()) {
+			case TEXT:
+				HtmlFragment fragment = (HtmlFragment)component;
+				if (!lineOpen) {
+					out.write("<div>");
+					lineOpen = true;
+				}
+				out.write("<span style=\"");
+				out.write(getStyle(fragment.getFont(), fragment.getColor(),
+					fragment.getHtmlComponentHeight()));
+				out.write("\">");
+				writeEscaped(fragment.getText());
+				out.write("</span>");
+				break;
+			case HORIZONTAL_RULE:
+				endLine();
+				out.write("<hr style=\"border: none; height: 2px; ");
+				out.write("margin: 3px ");
+				out.write(Integer.toString(ruleX));
+				out.write("px; background: ");
+				out.write(getColor(inherit(component.getColor())));
+				out.write("\">\n");
+				break;
+			case OTHER:
+				break; // Draws nothing and takes no room
+			default:
+				if (lineOpen)
+					endLine();
+				else {
+					// An empty line still takes its height
+					out.write("<div style=\"height: ");
+					out.write(Integer.toString(
+						component.getHtmlComponentHeight()));
+					out.write("px\"></div>\n");
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Ends the current line of HTML, if one has been started.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private void endLine() throws IOException {
+		if (lineOpen)
+			out.write("</div>\n");
+		lineOpen = false;
+	}
+
+	/**
+	 * Writes a component as SVG.
+	 *
+	 * @param  component The {@code HtmlComponent}
+	 * @param  x         The x coord of its left edge
+	 * @param  y         The y coord of the top of its line
+	 * @throws IOException if writing fails
+	 */
+	private void writeSvg(HtmlComponent component, int x, int y)
+		throws IOException {
+		switch (component.getKind()) {
+			case TEXT:
+				HtmlFragment fragment = (HtmlFragment)component;
+				out.write("<text x=\"");
+				out.write(Integer.toString(x));
+				out.write("\" y=\"");
+				out.write(Integer.toString(y + fragment.getAscent()));
+				out.write("\" ");
+				out.write(getStyle(fragment.getFont(), fragment.getColor(),
+					fragment.getHtmlComponentHeight()));
+				out.write(">");
+				writeEscaped(fragment.getText());
+				out.write("</text>\n");
+				break;
+			case HORIZONTAL_RULE:
+				out.write("<rect x=\"");
+				out.write(Integer.toString(ruleX));
+				out.write("\" y=\"");
+				out.write(Integer.toString(y + 3));
+				out.write("\" width=\"");
+				out.write(Integer.toString(ruleWidth));
+				out.write("\" height=\"2\" fill=\"");
+				out.write(getColor(inherit(component.getColor())));
+				out.write("\"/>\n");
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Returns the style of a {@code Font} and {@code Color}: a CSS
+	 * declaration for HTML, or presentation attributes for SVG.
+	 *
+	 * @param  font   The {@code Font}
+	 * @param  color  The {@code Color}, or {@code null} for the last one
+	 * @param  height The height of a line of the {@code Font}
+	 * @return The style
+	 */
+	private String getStyle(Font font, Color color, int height) {
+		color = inherit(color);
+		if (font == lastFont && color == lastColor)
+			return lastStyle;
+		lastFont = font;
+		lastColor = color;
+		List<Object> key = Arrays.asList(font, color);
+		String style = styles.get(key);
+		if (style != null)
+			return lastStyle = style;
+
+		String family = getFamily(font);
+		String weight = font.isBold() ? "bold" : "normal";
+		String fontStyle = font.isItalic() ? "italic" : "normal";
+		style = svg ? "font-family=\"" + family + "\" font-size=\"" +
+			font.getSize() + "\" font-weight=\"" + weight +
+			"\" font-style=\"" + fontStyle + "\" fill=\"" + getColor(color) +
+			"\" xml:space=\"preserve\"" : "font: " + fontStyle + " " +
+			weight + " " + font.getSize() + "px/" + height + "px " + family +
+			"; color: " + getColor(color);
+		styles.put(key, style);
+		return lastStyle = style;
+	}
+
+	/**
+	 * Returns the CSS font family of a {@code Font}, mapping Java's logical
+	 * fonts to the generic families.
+	 *
+	 * @param  font The {@code Font}
+	 * @return The family, quoted if necessary
+	 */
+	private static String getFamily(Font font) {
+		String name = font.getName();
+		int dot = name.indexOf('.');
+		String logical = dot < 0 ? name : name.substring(0, dot);
+		switch (logical) {
+			case Font.SANS_SERIF:
+			case Font.DIALOG:
+				return "sans-serif";
+			case Font.SERIF:
+				return "serif";
+			case Font.MONOSPACED:
+			case Font.DIALOG_INPUT:
+				return "monospace";
+			default:
+				return "'" + name.replaceAll("[\"'<>&\\\\]", "") +
+					"', sans-serif";
+		}
+	}
+
+	/**
+	 * Returns a {@code Color}, or the last one written if it is {@code null},
+	 * as a {@link java.awt.Graphics} keeps its color when given none.
+	 *
+	 * @param  color The {@code Color}, or {@code null}
+	 * @return The {@code Color} to write
+	 */
+	private Color inherit(Color color) {
+		if (color != null)
+			currentColor = color;
+		return currentColor;
+	}
+
+	/**
+	 * Returns a {@code Color} as a CSS hex color.
+	 *
+	 * @param  color The {@code Color}
+	 * @return The hex color
+	 */
+	private static String getColor(Color color) {
+		return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+	}
+
+	/**
+	 * Writes text with the characters special to HTML and XML escaped, and
+	 * without the characters XML forbids: control characters, U+FFFE, U+FFFF
+	 * and surrogates that are not part of a pair.
+	 *
+	 * @param  text The text
+	 * @throws IOException if writing fails
+	 */
+	private void writeEscaped(String text) throws IOException {
+		int start = 0;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char ch = text.charAt(i);
+			String escape;
+			if (ch == '&')
+				escape = "&amp;";
+			else if (ch == '<')
+				escape = "&lt;";
+			else if (ch == '>')
+				escape = "&gt;";
+			else if (ch < 0x20 && ch != '\t' || ch >= 0xFFFE)
+				escape = "";
+			else if (Character.isHighSurrogate(ch) && i + 1 < length &&
+				Character.isLowSurrogate(text.charAt(i + 1))) {
+				i++;
+				continue;
+			} else if (Character.isSurrogate(ch))
+				escape = "";
+			else continue;
+			out.write(text, start, i - start);
+			out.write(escape);
+			start = i + 1;
+		}
+		out.write(text, start, length - start);
+	}
+}
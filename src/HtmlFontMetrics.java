@@ -0,0 +1,460 @@
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import javax.swing.JComponent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached measurements for a single {@link Font}, as measured in a single
+ * {@link FontRenderContext}. Besides the height and
+ * ascent, a {@code HtmlFontMetrics} keeps a table of the advances of the
+ * first 256 characters so that Latin-1 text can be measured with a tight loop
+ * instead of a call into Java2D. Text containing any other character is
+ * measured with {@link FontMetrics#stringWidth}.
+ *
+ * <p>Widths are accumulated as {@code float}s and rounded once at the end,
+ * exactly as {@link FontMetrics#stringWidth} does, so the result is identical
+ * to the width that was used before the table existed. Widths of short
+ * strings outside the table are remembered, and all of these measurements
+ * can be saved between runs with {@link HtmlFontMetricsCache}.
+ *
+ * @since October 19th, 2026
+ * @see HtmlFragment
+ * @see HtmlPrinter
+ */
+public class HtmlFontMetrics {
+
+	/**
+	 * The number of characters covered by the advance table.
+	 */
+	private static final int TABLE_SIZE = 256;
+
+	/**
+	 * The length of the longest string outside the advance table whose width
+	 * is remembered.
+	 */
+	private static final int MAX_WORD_LENGTH = 32;
+
+	/**
+	 * The number of widths of strings outside the advance table remembered
+	 * per {@code Font}.
+	 */
+	private static final int MAX_WORDS = 1024;
+
+	/**
+	 * The {@code HtmlFontMetrics} created so far, by {@code Font} and
+	 * {@code FontRenderContext}.
+	 */
+	private static final Map<List<Object>, HtmlFontMetrics> CACHE =
+		new ConcurrentHashMap<List<Object>, HtmlFontMetrics>();
+
+	/**
+	 * The {@code FontRenderContext}s of components, by their text
+	 * antialiasing and fractional metrics hints.
+	 */
+	private static final Map<List<Object>, FontRenderContext> CONTEXTS =
+		new ConcurrentHashMap<List<Object>, FontRenderContext>();
+
+	/**
+	 * An off-screen {@code Graphics2D} that fonts loaded from a cache are
+	 * measured with, on whatever thread first needs them. Guarded by the
+	 * class lock.
+	 */
+	private static Graphics2D offscreenGraphics;
+
+	/**
+	 * The {@code Font} that is measured.
+	 */
+	private final Font font;
+
+	/**
+	 * The {@code FontRenderContext} the {@code Font} is measured in.
+	 */
+	private final FontRenderContext fontRenderContext;
+
+	/**
+	 * The {@code FontMetrics} used for text outside of the advance table, or
+	 * {@code null} until it is needed if this {@code HtmlFontMetrics} was
+	 * loaded from a {@link HtmlFontMetricsCache}.
+	 */
+	private volatile FontMetrics fontMetrics;
+
+	/**
+	 * The height, in pixels, of a line of text.
+	 */
+	private final int height;
+
+	/**
+	 * The distance typical from the baseline to the top of characters.
+	 */
+	private final int ascent;
+
+	/**
+	 * The advances of the first {@link #TABLE_SIZE} characters, or
+	 * {@code null} if the {@code Font} requires layout for every string.
+	 */
+	private final float[] advances;
+
+	/**
+	 * The widths of short strings measured with {@code FontMetrics}.
+	 */
+	private final Map<String, Integer> wordWidths =
+		new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * Constructs a {@code HtmlFontMetrics} and fills its advance table.
+	 *
+	 * @param  fontMetrics The {@code FontMetrics} to take measurements from
+	 */
+	public HtmlFontMetrics(FontMetrics fontMetrics) {
+		this.fontMetrics = fontMetrics;
+		font = fontMetrics.getFont();
+		fontRenderContext = fontMetrics.getFontRenderContext();
+		height = fontMetrics.getHeight();
+		ascent = fontMetrics.getAscent();
+
+		// Fonts with layout attributes (kerning, ligatures, tracking, ...)
+		// cannot be measured one character at a time.
+		if (font.hasLayoutAttributes())
+			advances = null;
+		else {
+			advances = new float[TABLE_SIZE];
+			char[] chars = new char[1];
+			for (int i = 0; i < TABLE_SIZE; i++) {
+				chars[0] = (char)i;
+				advances[i] = (float)fontMetrics.getStringBounds(chars, 0, 1,
+					null).getWidth();
+			}
+		}
+	}
+
+	/**
+	 * Constructs a {@code HtmlFontMetrics} from saved measurements, without
+	 * loading the {@code Font}.
+	 *
+	 * @param  font              The {@code Font} that was measured
+	 * @param  fontRenderContext The {@code FontRenderContext} it was
+	 *  measured in
+	 * @param  height            The height of a line of text
+	 * @param  ascent            The ascent
+	 * @param  advances          The advance table, or {@code null}
+	 * @param  wordWidths        The widths of short strings outside the
+	 *  table
+	 */
+	HtmlFontMetrics(Font font, FontRenderContext fontRenderContext,
+		int height, int ascent, float[] advances,
+		Map<String, Integer> wordWidths) {
+		this.font = font;
+		this.fontRenderContext = fontRenderContext;
+		this.height = height;
+		this.ascent = ascent;
+		this.advances = advances;
+		this.wordWidths.putAll(wordWidths);
+	}
+
+	/**
+	 * Returns the shared {@code HtmlFontMetrics} for a {@code Font} in the
+	 * {@code FontRenderContext} of a component, taking it from a loaded
+	 * {@link HtmlFontMetricsCache} or measuring the {@code Font} if
+	 * necessary. Components that render text differently, such as with and
+	 * without antialiasing, do not share measurements. The
+	 * {@code Font} is not loaded unless it has to be measured.
+	 *
+	 * @param  font      The {@code Font} to measure
+	 * @param  component The {@link JComponent} whose text antialiasing and
+	 *  fractional metrics to measure with
+	 * @return The {@code HtmlFontMetrics}
+	 */
+	public static HtmlFontMetrics getFontMetrics(Font font,
+		JComponent component) {
+		FontRenderContext fontRenderContext =
+			getFontRenderContext(component);
+		List<Object> key = Arrays.asList(font, fontRenderContext);
+		HtmlFontMetrics metrics = CACHE.get(key);
+		if (metrics == null) {
+			metrics = HtmlFontMetricsCache.getLoaded(font, fontRenderContext);
+			if (metrics == null)
+				metrics = new HtmlFontMetrics(getOffscreenFontMetrics(font,
+					fontRenderContext));
+			HtmlFontMetrics previous = CACHE.putIfAbsent(key, metrics);
+			if (previous != null)
+				metrics = previous;
+		}
+		return metrics;
+	}
+
+	/**
+	 * Returns the {@code FontRenderContext} that a component measures text
+	 * in, from its text antialiasing and fractional metrics client
+	 * properties, without loading any {@code Font}. As in Swing, text is not
+	 * antialiased unless the component asks for it.
+	 *
+	 * @param  component The {@code JComponent}
+	 * @return The {@code FontRenderContext}, shared by every component with
+	 *  the same hints
+	 */
+	static FontRenderContext getFontRenderContext(JComponent component) {
+		Object antialiasing = component.getClientProperty(
+			RenderingHints.KEY_TEXT_ANTIALIASING);
+		Object fractionalMetrics = component.getClientProperty(
+			RenderingHints.KEY_FRACTIONALMETRICS);
+		List<Object> hints = Arrays.asList(antialiasing == null ?
+			RenderingHints.VALUE_TEXT_ANTIALIAS_OFF : antialiasing,
+			fractionalMetrics == null ?
+			RenderingHints.VALUE_FRACTIONALMETRICS_OFF : fractionalMetrics);
+		FontRenderContext fontRenderContext = CONTEXTS.get(hints);
+		if (fontRenderContext == null) {
+			fontRenderContext = new FontRenderContext(null, hints.get(0),
+				hints.get(1));
+			FontRenderContext previous = CONTEXTS.putIfAbsent(hints,
+				fontRenderContext);
+			if (previous != null)
+				fontRenderContext = previous;
+		}
+		return fontRenderContext;
+	}
+
+	/**
+	 * Returns all the shared {@code HtmlFontMetrics} created so far.
+	 *
+	 * @return The {@code HtmlFontMetrics}
+	 */
+	static Iterable<HtmlFontMetrics> getAll() {
+		return CACHE.values();
+	}
+
+	/**
+	 * Returns the {@code Font} that is measured.
+	 *
+	 * @return The {@code Font}
+	 */
+	public Font getFont() {
+		return font;
+	}
+
+	/**
+	 * Returns the {@code FontRenderContext} the {@code Font} is measured in.
+	 *
+	 * @return The {@code FontRenderContext}
+	 */
+	public FontRenderContext getFontRenderContext() {
+		return fontRenderContext;
+	}
+
+	/**
+	 * Returns the height, in pixels, of a line of text in this {@code Font}.
+	 *
+	 * @return The height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the ascent (the distance typical from the baseline to the top of
+	 * characters), in pixels.
+	 *
+	 * @return The ascent
+	 */
+	public int getAscent() {
+		return ascent;
+	}
+
+	/**
+	 * Returns the width, in pixels, of a {@code CharSequence}.
+	 *
+	 * @param  text The text to measure
+	 * @return The width
+	 */
+	public int stringWidth(CharSequence text) {
+		if (advances != null) {
+			float width = 0;
+			int length = text.length();
+			int i = 0;
+			for (; i < length; i++) {
+				char ch = text.charAt(i);
+				if (ch >= TABLE_SIZE)
+					break;
+				width += advances[ch];
+			}
+			if (i == length)
+				return (int)(0.5 + width);
+		}
+		String string = text.toString();
+		if (string.length() > MAX_WORD_LENGTH)
+			return getFontMetrics().stringWidth(string);
+		Integer width = wordWidths.get(string);
+		if (width == null) {
+			width = getFontMetrics().stringWidth(string);
+			if (wordWidths.size() < MAX_WORDS)
+				wordWidths.put(string, width);
+		}
+		return width;
+	}
+
+	/**
+	 * Returns the width, in pixels, of a range of a {@code char} array.
+	 *
+	 * @param  chars  The characters to measure
+	 * @param  offset The index of the first character
+	 * @param  length The number of characters
+	 * @return The width
+	 */
+	public int charsWidth(char[] chars, int offset, int length) {
+		if (advances != null) {
+			float width = 0;
+			int end = offset + length;
+			int i = offset;
+			for (; i < end; i++) {
+				char ch = chars[i];
+				if (ch >= TABLE_SIZE)
+					break;
+				width += advances[ch];
+			}
+			if (i == end)
+				return (int)(0.5 + width);
+		}
+		return getFontMetrics().charsWidth(chars, offset, length);
+	}
+
+	/**
+	 * Returns the widths of the first 0, {@code step}, {@code 2 * step} and
+	 * so on characters of a {@code CharSequence}, up to but not including its
+	 * whole length, so that long text can be drawn in pieces. Only text that
+	 * is entirely in the advance table of a {@code Font} without layout
+	 * attributes can be; other text may be shaped across the pieces, or have
+	 * surrogate pairs split between them, so it must be drawn whole.
+	 *
+	 * @param  text The text to measure
+	 * @param  step The number of characters in each piece
+	 * @return The widths, one for the start of each piece, or {@code null}
+	 *  if the text cannot be drawn in pieces
+	 */
+	public int[] getPrefixWidths(CharSequence text, int step) {
+		if (advances == null)
+			return null;
+		int length = text.length();
+		int[] widths = new int[(length + step - 1) / step];
+		float width = 0;
+		for (int i = 0; i < length; i++) {
+			char ch = text.charAt(i);
+			if (ch >= TABLE_SIZE)
+				return null;
+			if (i % step == 0)
+				widths[i / step] = (int)(0.5 + width);
+			width += advances[ch];
+		}
+		return widths;
+	}
+
+	/**
+	 * Returns the offset of the character boundary nearest to an x offset
+	 * into a {@code CharSequence}, such as for placing a caret where it was
+	 * clicked.
+	 *
+	 * @param  text The text
+	 * @param  x    The x offset, in pixels, from the start of the text
+	 * @return The offset, from 0 to the length of the text
+	 */
+	public int getOffset(CharSequence text, int x) {
+		int length = text.length();
+		if (x <= 0 || length == 0)
+			return 0;
+		if (advances != null) {
+			float width = 0;
+			int i = 0;
+			for (; i < length; i++) {
+				char ch = text.charAt(i);
+				if (ch >= TABLE_SIZE)
+					break;
+				float next = width + advances[ch];
+				if (x < (int)(0.5 + (width + next) / 2))
+					return i;
+				width = next;
+			}
+			if (i == length)
+				return length;
+		}
+
+		// Find the longest prefix that ends at or before x
+		int low = 0;
+		int high = length;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (stringWidth(text.subSequence(0, middle)) <= x)
+				low = middle;
+			else high = middle - 1;
+		}
+		if (low < length && stringWidth(text.subSequence(0, low + 1)) - x <
+			x - stringWidth(text.subSequence(0, low)))
+			low++;
+		return low;
+	}
+
+	/**
+	 * Returns the advance table, or {@code null} if there is none.
+	 *
+	 * @return The advance table
+	 */
+	float[] getAdvances() {
+		return advances;
+	}
+
+	/**
+	 * Returns the remembered widths of short strings outside the advance
+	 * table.
+	 *
+	 * @return The widths, by string
+	 */
+	Map<String, Integer> getWordWidths() {
+		return wordWidths;
+	}
+
+	/**
+	 * Returns the {@code FontMetrics} of the {@code Font}, loading the
+	 * {@code Font} if this {@code HtmlFontMetrics} was loaded from a cache.
+	 * They are taken from an off-screen {@code Graphics2D} with the
+	 * antialiasing and fractional metrics of the
+	 * {@code FontRenderContext}, so they measure as the saved table did.
+	 *
+	 * @return The {@code FontMetrics}
+	 */
+	private FontMetrics getFontMetrics() {
+		FontMetrics metrics = fontMetrics;
+		if (metrics == null)
+			fontMetrics = metrics = getOffscreenFontMetrics(font,
+				fontRenderContext);
+		return metrics;
+	}
+
+	/**
+	 * Returns the {@code FontMetrics} of a {@code Font} in an untransformed
+	 * {@code FontRenderContext}, without a component, loading the
+	 * {@code Font}.
+	 *
+	 * @param  font              The {@code Font}
+	 * @param  fontRenderContext The {@code FontRenderContext} whose hints to
+	 *  measure with
+	 * @return The {@code FontMetrics}
+	 */
+	private static synchronized FontMetrics getOffscreenFontMetrics(Font font,
+		FontRenderContext fontRenderContext) {
+		if (offscreenGraphics == null)
+			offscreenGraphics = new BufferedImage(1, 1,
+				BufferedImage.TYPE_INT_ARGB).createGraphics();
+		offscreenGraphics.setRenderingHint(
+			RenderingHints.KEY_TEXT_ANTIALIASING,
+			fontRenderContext.getAntiAliasingHint());
+		offscreenGraphics.setRenderingHint(
+			RenderingHints.KEY_FRACTIONALMETRICS,
+			fontRenderContext.getFractionalMetricsHint());
+		return offscreenGraphics.getFontMetrics(font);
+	}
+}
@@ -0,0 +1,362 @@
+import java.awt.Font;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saves the measurements of {@link HtmlFontMetrics} to a file and loads them
+ * in later runs, so that short-lived processes can lay out text without
+ * waiting for Java2D to load and measure fonts.
+ *
+ * <p>The file holds the height, ascent, advance table and remembered string
+ * widths of every plain (untransformed, without layout attributes)
+ * {@code Font} measured, with the antialiasing and fractional metrics of the
+ * untransformed {@code FontRenderContext} it was measured in. It is
+ * versioned and keyed by the Java runtime and operating system versions and
+ * by the names, sizes and modification times of every file in the usual
+ * font directories; a file written under any other key is ignored, so stale
+ * measurements are never used.
+ *
+ * @since October 19th, 2026
+ * @see HtmlFontMetrics
+ */
+public class HtmlFontMetricsCache {
+
+	/**
+	 * The system property naming the default cache file.
+	 */
+	public static final String FILE_PROPERTY =
+		"SimpleHtmlRenderer.fontMetricsCache";
+
+	/**
+	 * The first bytes of a cache file, "SHRM".
+	 */
+	private static final int MAGIC = 0x5348524D;
+
+	/**
+	 * The version of the file format.
+	 */
+	private static final int FORMAT_VERSION = 2;
+
+	/**
+	 * The text antialiasing hints a {@code FontRenderContext} may have, in
+	 * the order they are numbered in the file.
+	 */
+	private static final List<Object> ANTIALIASING_HINTS = Arrays.asList(
+		RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_OFF,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_ON,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_GASP,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HBGR,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_VRGB,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_VBGR);
+
+	/**
+	 * The fractional metrics hints a {@code FontRenderContext} may have, in
+	 * the order they are numbered in the file.
+	 */
+	private static final List<Object> FRACTIONAL_METRICS_HINTS =
+		Arrays.asList(RenderingHints.VALUE_FRACTIONALMETRICS_DEFAULT,
+		RenderingHints.VALUE_FRACTIONALMETRICS_OFF,
+		RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+
+	/**
+	 * The measurements loaded from a cache file, by {@link #key}.
+	 */
+	private static final Map<String, HtmlFontMetrics> LOADED =
+		new ConcurrentHashMap<String, HtmlFontMetrics>();
+
+	/**
+	 * The key of the current environment, computed once.
+	 */
+	private static String environmentKey;
+
+	/**
+	 * Not instantiable.
+	 */
+	private HtmlFontMetricsCache() {}
+
+	/**
+	 * Returns the cache file named by the {@link #FILE_PROPERTY} system
+	 * property.
+	 *
+	 * @return The file, or {@code null} if the property is not set
+	 */
+	public static Path getDefaultFile() {
+		String file = System.getProperty(FILE_PROPERTY);
+		return file == null || file.isEmpty() ? null : Paths.get(file);
+	}
+
+	/**
+	 * Loads the measurements in a cache file, if it exists and was written in
+	 * the same environment. A missing, stale or damaged file is ignored.
+	 *
+	 * @param  file The cache file
+	 * @return The number of fonts loaded
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public static int load(Path file) throws IOException {
+		ByteBuffer buffer;
+		try {
+			// Read rather than mapped, since a mapping would keep the file
+			// open and stop save from replacing it on some systems
+			buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		} catch (NoSuchFileException e) {
+			return 0;
+		}
+
+		Map<String, HtmlFontMetrics> fonts =
+			new HashMap<String, HtmlFontMetrics>();
+		try {
+			if (buffer.getInt() != MAGIC ||
+				buffer.getInt() != FORMAT_VERSION ||
+				!readString(buffer).equals(getEnvironmentKey()))
+				return 0;
+			for (int count = buffer.getInt(); count > 0; count--) {
+				String name = readString(buffer);
+				int style = buffer.getInt();
+				float size = buffer.getFloat();
+				FontRenderContext fontRenderContext = new FontRenderContext(
+					null, ANTIALIASING_HINTS.get(buffer.getInt()),
+					FRACTIONAL_METRICS_HINTS.get(buffer.getInt()));
+				int height = buffer.getInt();
+				int ascent = buffer.getInt();
+				float[] advances = null;
+				int advanceCount = buffer.getInt();
+				if (advanceCount < 0 || advanceCount > buffer.remaining() / 4)
+					throw new BufferUnderflowException();
+				if (advanceCount > 0) {
+					advances = new float[advanceCount];
+					buffer.asFloatBuffer().get(advances);
+					buffer.position(buffer.position() + 4 * advanceCount);
+				}
+				Map<String, Integer> wordWidths =
+					new HashMap<String, Integer>();
+				for (int words = buffer.getInt(); words > 0; words--)
+					wordWidths.put(readString(buffer), buffer.getInt());
+
+				Font font = new Font(name, style, 1).deriveFont(size);
+				fonts.put(key(font, fontRenderContext), new HtmlFontMetrics(
+					font, fontRenderContext, height, ascent, advances,
+					wordWidths));
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException |
+			IndexOutOfBoundsException e) {
+			return 0; // Damaged; ignore it all
+		}
+		LOADED.putAll(fonts);
+		return fonts.size();
+	}
+
+	/**
+	 * Saves the measurements of every plain {@code Font} measured so far,
+	 * replacing the cache file atomically.
+	 *
+	 * @param  file The cache file
+	 * @return The number of fonts saved
+	 * @throws IOException if the file cannot be written
+	 */
+	public static int save(Path file) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		Map<String, HtmlFontMetrics> fonts =
+			new HashMap<String, HtmlFontMetrics>(LOADED);
+		for (HtmlFontMetrics metrics : HtmlFontMetrics.getAll())
+			if (isPlain(metrics.getFont(), metrics.getFontRenderContext()))
+				fonts.put(key(metrics.getFont(),
+					metrics.getFontRenderContext()), metrics);
+
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		writeString(out, getEnvironmentKey());
+		out.writeInt(fonts.size());
+		for (HtmlFontMetrics metrics : fonts.values()) {
+			Font font = metrics.getFont();
+			writeString(out, font.getName());
+			out.writeInt(font.getStyle());
+			out.writeFloat(font.getSize2D());
+			FontRenderContext fontRenderContext =
+				metrics.getFontRenderContext();
+			out.writeInt(ANTIALIASING_HINTS.indexOf(
+				fontRenderContext.getAntiAliasingHint()));
+			out.writeInt(FRACTIONAL_METRICS_HINTS.indexOf(
+				fontRenderContext.getFractionalMetricsHint()));
+			out.writeInt(metrics.getHeight());
+			out.writeInt(metrics.getAscent());
+			float[] advances = metrics.getAdvances();
+			out.writeInt(advances == null ? 0 : advances.length);
+			if (advances != null)
+				for (float advance : advances)
+					out.writeFloat(advance);
+			Map<String, Integer> wordWidths =
+				new HashMap<String, Integer>(metrics.getWordWidths());
+			out.writeInt(wordWidths.size());
+			for (Map.Entry<String, Integer> entry : wordWidths.entrySet()) {
+				writeString(out, entry.getKey());
+				out.writeInt(entry.getValue());
+			}
+		}
+		out.flush();
+
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, "fontMetrics", ".tmp");
+		try {
+			try (OutputStream stream = Files.newOutputStream(temporary)) {
+				bytes.writeTo(stream);
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		return fonts.size();
+	}
+
+	/**
+	 * Returns and forgets the loaded measurements of a {@code Font} in a
+	 * {@code FontRenderContext}, if any. Called by {@link HtmlFontMetrics}
+	 * the first time a {@code Font} is measured in it.
+	 *
+	 * @param  font              The {@code Font}
+	 * @param  fontRenderContext The {@code FontRenderContext}
+	 * @return The measurements, or {@code null}
+	 */
+	static HtmlFontMetrics getLoaded(Font font,
+		FontRenderContext fontRenderContext) {
+		if (LOADED.isEmpty() || !isPlain(font, fontRenderContext))
+			return null;
+		HtmlFontMetrics loaded = LOADED.remove(key(font, fontRenderContext));
+		return loaded == null ? null : new HtmlFontMetrics(font,
+			fontRenderContext, loaded.getHeight(), loaded.getAscent(),
+			loaded.getAdvances(), loaded.getWordWidths());
+	}
+
+	/**
+	 * Tests if a {@code Font} and {@code FontRenderContext} can be identified
+	 * by the name, style and size of the {@code Font} and the hints of the
+	 * {@code FontRenderContext} alone.
+	 *
+	 * @param  font              The {@code Font}
+	 * @param  fontRenderContext The {@code FontRenderContext}
+	 * @return true if plain, false otherwise
+	 */
+	private static boolean isPlain(Font font,
+		FontRenderContext fontRenderContext) {
+		return !font.isTransformed() && !font.hasLayoutAttributes() &&
+			!fontRenderContext.isTransformed() &&
+			ANTIALIASING_HINTS.contains(
+			fontRenderContext.getAntiAliasingHint()) &&
+			FRACTIONAL_METRICS_HINTS.contains(
+			fontRenderContext.getFractionalMetricsHint());
+	}
+
+	/**
+	 * Returns the key of a plain {@code Font} and {@code FontRenderContext}.
+	 *
+	 * @param  font              The {@code Font}
+	 * @param  fontRenderContext The {@code FontRenderContext}
+	 * @return The key
+	 */
+	private static String key(Font font,
+		FontRenderContext fontRenderContext) {
+		// Appended explicitly, as string concatenation compiled for newer
+		// releases takes milliseconds to bootstrap the first time
+		return new StringBuilder(font.getName()).append('\0')
+			.append(font.getStyle()).append('\0')
+			.append(font.getSize2D()).append('\0')
+			.append(ANTIALIASING_HINTS.indexOf(
+			fontRenderContext.getAntiAliasingHint())).append('\0')
+			.append(FRACTIONAL_METRICS_HINTS.indexOf(
+			fontRenderContext.getFractionalMetricsHint())).toString();
+	}
+
+	/**
+	 * Returns a key identifying the Java runtime, operating system and
+	 * installed fonts. Fonts are identified by the modification times of the
+	 * usual font directories and of the fontconfig cache, which change when
+	 * fonts are installed or removed, rather than by walking every font
+	 * file; listing the font families would load the fonts this cache exists
+	 * to avoid loading.
+	 *
+	 * @return The key
+	 */
+	private static synchronized String getEnvironmentKey() {
+		if (environmentKey != null)
+			return environmentKey;
+
+		StringBuilder key = new StringBuilder();
+		for (String property : new String[] {"java.vendor", "java.version",
+			"java.vm.version", "java.home", "os.name", "os.arch",
+			"os.version"})
+			key.append(System.getProperty(property)).append('\n');
+
+		String home = System.getProperty("user.home");
+		String windows = System.getenv("WINDIR");
+		String[] directories = {System.getProperty("java.home") +
+			"/lib/fonts", "/usr/share/fonts", "/usr/local/share/fonts",
+			"/etc/fonts", home + "/.fonts", home + "/.local/share/fonts",
+			"/Library/Fonts", "/System/Library/Fonts", home + "/Library/Fonts",
+			windows + "/Fonts", "/var/cache/fontconfig",
+			home + "/.cache/fontconfig"};
+		for (String directory : directories) {
+			try {
+				key.append(Files.getLastModifiedTime(Paths.get(directory))
+					.toMillis());
+			} catch (IOException | RuntimeException e) {
+				key.append('-'); // Missing
+			}
+			key.append('\n');
+		}
+		return environmentKey = key.toString();
+	}
+
+	/**
+	 * Reads a length-prefixed UTF-8 string.
+	 *
+	 * @param  buffer The buffer to read from
+	 * @return The string
+	 */
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining())
+			throw new BufferUnderflowException();
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a length-prefixed UTF-8 string.
+	 *
+	 * @param  out    The stream to write to
+	 * @param  string The string
+	 * @throws IOException if writing fails
+	 */
+	private static void writeString(DataOutputStream out, String string)
+		throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
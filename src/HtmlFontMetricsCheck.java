@@ -0,0 +1,243 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A headless check that the advance tables of {@link HtmlFontMetrics} agree
+ * with Java2D. For every logical font in a range of styles and sizes, it
+ * measures a corpus of Latin-1 strings with both
+ * {@link HtmlFontMetrics#stringWidth} and {@link FontMetrics#stringWidth},
+ * and draws each string whole and as fragments placed at the widths from
+ * the advance table, as {@link HtmlCanvas} places them, comparing the pixels.
+ * Any difference is reported and makes the check exit with status 1.
+ *
+ * <p>Usage: {@code java HtmlFontMetricsCheck [--strings count]
+ * [--seed seed]}.
+ *
+ * @since October 19th, 2026
+ * @see HtmlFontMetrics
+ */
+public class HtmlFontMetricsCheck {
+
+	/**
+	 * The font families checked.
+	 */
+	private static final String[] FAMILIES = {Font.SANS_SERIF, Font.SERIF,
+		Font.MONOSPACED, Font.DIALOG};
+
+	/**
+	 * The font styles checked.
+	 */
+	private static final int[] STYLES = {Font.PLAIN, Font.BOLD, Font.ITALIC,
+		Font.BOLD | Font.ITALIC};
+
+	/**
+	 * The font sizes checked, which include every size
+	 * {@link HtmlPrinter} prints with.
+	 */
+	private static final int[] SIZES = {11, 13, 15, 16, 19, 24, 32};
+
+	/**
+	 * The longest string in the corpus.
+	 */
+	private static final int MAX_LENGTH = 40;
+
+	/**
+	 * The printable Latin-1 characters.
+	 */
+	private static final char[] LATIN_1 = getLatin1();
+
+	/**
+	 * The {@code HtmlCanvas} fonts are measured with.
+	 */
+	private final HtmlCanvas htmlCanvas = new HtmlCanvas();
+
+	/**
+	 * The image strings are drawn into, and the pixels of a string drawn
+	 * whole and in pieces.
+	 */
+	private final BufferedImage image;
+	private final int[] whole;
+	private final int[] pieces;
+
+	/**
+	 * The random strings measured.
+	 */
+	private final String[] corpus;
+
+	/**
+	 * The number of strings measured and drawn, and the number that
+	 * differed.
+	 */
+	private long measured;
+	private long widthMismatches;
+	private long drawn;
+	private long pixelMismatches;
+
+	/**
+	 * Constructs a {@code HtmlFontMetricsCheck} with a random corpus.
+	 *
+	 * @param  strings The number of random strings in the corpus
+	 * @param  seed    The seed for the corpus
+	 */
+	public HtmlFontMetricsCheck(int strings, long seed) {
+		Random random = new Random(seed);
+		corpus = new String[strings + 1];
+		corpus[0] = new String(LATIN_1);
+		for (int i = 1; i < corpus.length; i++) {
+			char[] chars = new char[1 + random.nextInt(MAX_LENGTH)];
+			for (int j = 0; j < chars.length; j++)
+				chars[j] = random.nextInt(4) == 0 ? ' ' :
+					LATIN_1[random.nextInt(LATIN_1.length)];
+			corpus[i] = new String(chars);
+		}
+		image = new BufferedImage(2000, 64, BufferedImage.TYPE_INT_RGB);
+		whole = new int[image.getWidth() * image.getHeight()];
+		pieces = new int[whole.length];
+	}
+
+	/**
+	 * Checks every font against the corpus, printing each difference.
+	 *
+	 * @return true if there were no differences, false otherwise
+	 */
+	public boolean run() {
+		for (String family : FAMILIES)
+			for (int style : STYLES)
+				for (int size : SIZES)
+					check(new Font(family, style, size));
+		return widthMismatches == 0 && pixelMismatches == 0;
+	}
+
+	/**
+	 * Checks a single font against the corpus.
+	 *
+	 * @param font The {@code Font}
+	 */
+	private void check(Font font) {
+		HtmlFontMetrics metrics =
+			HtmlFontMetrics.getFontMetrics(font, htmlCanvas);
+		FontMetrics fontMetrics = htmlCanvas.getFontMetrics(font);
+		for (String text : corpus) {
+			measured++;
+			int expected = fontMetrics.stringWidth(text);
+			int actual = metrics.stringWidth(text);
+			if (actual != expected) {
+				widthMismatches++;
+				System.out.printf("width %s \"%s\": %d, expected %d%n",
+					font, text, actual, expected);
+			}
+			if (text.length() * font.getSize() > image.getWidth())
+				continue;
+			drawn++;
+			if (!drawsAlike(font, metrics, text)) {
+				pixelMismatches++;
+				System.out.printf("pixels %s \"%s\"%n", font, text);
+			}
+		}
+	}
+
+	/**
+	 * Tests if a string looks the same drawn whole as drawn a word at a time
+	 * at the widths from the advance table.
+	 *
+	 * @param  font    The {@code Font} to draw with
+	 * @param  metrics The {@code HtmlFontMetrics} of the {@code Font}
+	 * @param  text    The string
+	 * @return true if the pixels are the same, false otherwise
+	 */
+	private boolean drawsAlike(Font font, HtmlFontMetrics metrics,
+		String text) {
+		int baseline = metrics.getAscent();
+		Graphics2D g = image.createGraphics();
+		try {
+			htmlCanvas.getRenderingProfile().apply(g);
+			g.setFont(font);
+			clear(g);
+			g.drawString(text, 0, baseline);
+			image.getRGB(0, 0, image.getWidth(), image.getHeight(), whole, 0,
+				image.getWidth());
+
+			clear(g);
+			int start = 0;
+			while (start < text.length()) {
+				int end = text.indexOf(' ', start);
+				end = end < 0 ? text.length() : end + 1;
+				g.drawString(text.substring(start, end),
+					metrics.stringWidth(text.substring(0, start)), baseline);
+				start = end;
+			}
+			image.getRGB(0, 0, image.getWidth(), image.getHeight(), pieces, 0,
+				image.getWidth());
+		} finally {
+			g.dispose();
+		}
+		return Arrays.equals(whole, pieces);
+	}
+
+	/**
+	 * Clears the image to white and sets the {@code Graphics2D} to draw in
+	 * black.
+	 *
+	 * @param g The {@code Graphics2D} of the image
+	 */
+	private void clear(Graphics2D g) {
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+		g.setColor(Color.BLACK);
+	}
+
+	/**
+	 * Returns the printable Latin-1 characters.
+	 *
+	 * @return The characters
+	 */
+	private static char[] getLatin1() {
+		StringBuilder chars = new StringBuilder();
+		for (char ch = 0x20; ch < 0x100; ch++)
+			if (ch < 0x7F || ch >= 0xA0)
+				chars.append(ch);
+		return chars.toString().toCharArray();
+	}
+
+	/**
+	 * Runs the check with the options given on the command line.
+	 *
+	 * @param args Command line arguments, as described above
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+
+		int strings = 200;
+		long seed = 0;
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for " +
+					args[i]);
+			switch (args[i]) {
+				case "--strings":
+					strings = Integer.parseInt(args[i + 1]);
+					break;
+				case "--seed":
+					seed = Long.parseLong(args[i + 1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " +
+						args[i]);
+			}
+		}
+
+		HtmlFontMetricsCheck check = new HtmlFontMetricsCheck(strings, seed);
+		boolean passed = check.run();
+		System.out.printf("{\"fonts\":%d,\"measured\":%d," +
+			"\"widthMismatches\":%d,\"drawn\":%d,\"pixelMismatches\":%d}%n",
+			FAMILIES.length * STYLES.length * SIZES.length, check.measured,
+			check.widthMismatches, check.drawn, check.pixelMismatches);
+		System.exit(passed ? 0 : 1);
+	}
+}
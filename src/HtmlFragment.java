@@ -16,6 +16,11 @@ import javax.swing.JComponent;
  */
 public class HtmlFragment extends HtmlComponent {
 
+	/**
+	 * The number of characters in each piece that longer text is drawn in.
+	 */
+	static final int CHUNK_LENGTH = 128;
+
 	/**
 	 * The text that this {@code HtmlFragment} will render.
 	 */
@@ -31,6 +36,19 @@ public class HtmlFragment extends HtmlComponent {
 	 */
 	private final int ascent;
 
+	/**
+	 * The x offset of each {@link #CHUNK_LENGTH} characters of the text, or
+	 * {@code null} if the text is not longer than that or must be drawn
+	 * whole.
+	 */
+	private final int[] chunkXs;
+
+	/**
+	 * The characters of the text, so that its pieces can be drawn without
+	 * copying them, or {@code null} if it is drawn whole.
+	 */
+	private final char[] chars;
+
 	/**
 	 * Constructs a {@code HtmlFragment} with the provided values.
 	 *
@@ -42,11 +60,27 @@ public class HtmlFragment extends HtmlComponent {
 	 */
 	public HtmlFragment(String text, Font font, Color color,
 		JComponent component) {
-		super(color, component.getFontMetrics(font).stringWidth(text),
-			component.getFontMetrics(font).getHeight());
+		this(text, color, HtmlFontMetrics.getFontMetrics(font, component));
+	}
+
+	/**
+	 * Constructs a {@code HtmlFragment} measured by an existing
+	 * {@link HtmlFontMetrics}.
+	 *
+	 * @param  text        The text to display
+	 * @param  color       The {@code Color} to use
+	 * @param  fontMetrics The {@code HtmlFontMetrics} of the {@code Font} to
+	 *  use
+	 */
+	public HtmlFragment(String text, Color color, HtmlFontMetrics fontMetrics) {
+		super(Kind.TEXT, color, fontMetrics.stringWidth(text),
+			fontMetrics.getHeight());
 		this.text = text;
-		this.font = font;
-		ascent = component.getFontMetrics(font).getAscent();
+		this.font = fontMetrics.getFont();
+		ascent = fontMetrics.getAscent();
+		chunkXs = text.length() > CHUNK_LENGTH ?
+			fontMetrics.getPrefixWidths(text, CHUNK_LENGTH) : null;
+		chars = chunkXs == null ? null : text.toCharArray();
 	}
 
 	/**
@@ -77,4 +111,38 @@ public class HtmlFragment extends HtmlComponent {
 	public int getAscent() {
 		return ascent;
 	}
+
+	/**
+	 * Returns the x offset, from the start of the text, of each piece of
+	 * {@link #CHUNK_LENGTH} characters, so that only the visible part of long
+	 * text need be drawn.
+	 *
+	 * @return The offsets, or {@code null} if the text is drawn whole
+	 */
+	int[] getChunkXs() {
+		return chunkXs;
+	}
+
+	/**
+	 * Returns the characters of the text, if it is drawn in pieces.
+	 *
+	 * @return The characters, or {@code null} if the text is drawn whole
+	 */
+	char[] getChars() {
+		return chars;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!super.equals(other))
+			return false;
+		HtmlFragment fragment = (HtmlFragment)other;
+		return text.equals(fragment.text) && font.equals(fragment.font);
+	}
+
+	@Override
+	public int hashCode() {
+		return (super.hashCode() * 31 + text.hashCode()) * 31 +
+			font.hashCode();
+	}
 }
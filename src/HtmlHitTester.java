@@ -0,0 +1,350 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps points on a {@link HtmlCanvas} to positions in its
+ * {@link HtmlComponent}s and back. Obtain one with
+ * {@link HtmlCanvas#getHitTester}.
+ *
+ * <p>Hit testing uses an index of the first component and y offset of every
+ * line, and of the x offset of every component within its line. The index is
+ * extended as components are appended and only rebuilt when components are
+ * replaced, so a point is found with a binary search over the lines and then
+ * over the components of its line, and a character offset from the cached
+ * advances of the fragment's {@code Font}.
+ *
+ * @since October 19th, 2026
+ * @see HtmlSelection
+ */
+public class HtmlHitTester {
+
+	/**
+	 * A position between two characters: the index of a
+	 * {@link HtmlComponent} and a character offset into it. Every component
+	 * other than a {@link HtmlFragment} has only the offset 0, before it.
+	 */
+	public static final class Position implements Comparable<Position> {
+
+		/**
+		 * The index of the component.
+		 */
+		private final int component;
+
+		/**
+		 * The character offset into the component.
+		 */
+		private final int offset;
+
+		/**
+		 * Constructs a {@code Position}.
+		 *
+		 * @param  component The index of the component
+		 * @param  offset    The character offset into the component
+		 */
+		public Position(int component, int offset) {
+			this.component = component;
+			this.offset = offset;
+		}
+
+		/**
+		 * Returns the index of the component.
+		 *
+		 * @return The index
+		 */
+		public int getComponent() {
+			return component;
+		}
+
+		/**
+		 * Returns the character offset into the component.
+		 *
+		 * @return The offset
+		 */
+		public int getOffset() {
+			return offset;
+		}
+
+		@Override
+		public int compareTo(Position other) {
+			return component != other.component ?
+				Integer.compare(component, other.component) :
+				Integer.compare(offset, other.offset);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Position && compareTo((Position)other) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return component * 31 + offset;
+		}
+
+		@Override
+		public String toString() {
+			return component + ":" + offset;
+		}
+	}
+
+	/**
+	 * The {@code HtmlCanvas} whose components are indexed.
+	 */
+	private final HtmlCanvas htmlCanvas;
+
+	/**
+	 * The components indexed, or {@code null} if none have been set.
+	 */
+	private List<HtmlComponent> htmlComponents;
+
+	/**
+	 * The index of the first component and the y offset of every finished
+	 * line.
+	 */
+	private int[] lineStarts = new int[64];
+	private int[] lineTops = new int[64];
+
+	/**
+	 * The number of finished lines.
+	 */
+	private int lines;
+
+	/**
+	 * The x offset of every component from the start of its line.
+	 */
+	private int[] componentXs = new int[256];
+
+	/**
+	 * The number of components indexed, and the x offset and y offset at
+	 * which the next one starts.
+	 */
+	private int indexed;
+	private int nextX;
+	private int nextTop;
+
+	/**
+	 * The index of the first component of the unfinished last line.
+	 */
+	private int tailStart;
+
+	/**
+	 * The {@link HtmlCanvas#getRevision} that the index was built for.
+	 */
+	private int revision;
+
+	/**
+	 * Constructs a {@code HtmlHitTester}. Use {@link HtmlCanvas#getHitTester}
+	 * instead.
+	 *
+	 * @param  htmlCanvas The {@code HtmlCanvas} to hit test
+	 */
+	HtmlHitTester(HtmlCanvas htmlCanvas) {
+		this.htmlCanvas = htmlCanvas;
+		revision = htmlCanvas.getRevision() - 1; // Not built yet
+	}
+
+	/**
+	 * Finds the position nearest to a point on the canvas. A point above or
+	 * below the text is in the first or last line, and a point past the end
+	 * of a line is at its end.
+	 *
+	 * @param  x The x coord
+	 * @param  y The y coord
+	 * @return The position, or {@code null} if there are no components
+	 */
+	public synchronized Position hitTest(int x, int y) {
+		update();
+		int line = getLineAt(y - htmlCanvas.getYMargin());
+		if (line < 0)
+			return null;
+		int lineX = x - htmlCanvas.getXMargin();
+		int start = getLineStart(line);
+		int end = getLineEnd(line);
+
+		// The last component that starts at or before x
+		int low = start;
+		int high = end - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (componentXs[middle] <= lineX)
+				low = middle;
+			else high = middle - 1;
+		}
+		HtmlComponent component = htmlComponents.get(low);
+		if (component.getKind() != HtmlComponent.Kind.TEXT)
+			return new Position(low, 0);
+		HtmlFragment fragment = (HtmlFragment)component;
+		String text = fragment.getText();
+		int offset = HtmlFontMetrics.getFontMetrics(fragment.getFont(),
+			htmlCanvas).getOffset(text, lineX - componentXs[low]);
+		// The end of a fragment is the start of the next one
+		if (offset == text.length() && low + 1 < end)
+			return new Position(low + 1, 0);
+		return new Position(low, offset);
+	}
+
+	/**
+	 * Returns the x coord of a position on the canvas.
+	 *
+	 * @param  position The position
+	 * @return The x coord
+	 */
+	public synchronized int getX(Position position) {
+		update();
+		int x = htmlCanvas.getXMargin() + componentXs[position.getComponent()];
+		if (position.getOffset() == 0)
+			return x;
+		HtmlFragment fragment =
+			(HtmlFragment)htmlComponents.get(position.getComponent());
+		return x + HtmlFontMetrics.getFontMetrics(fragment.getFont(),
+			htmlCanvas).stringWidth(fragment.getText().subSequence(0,
+			position.getOffset()));
+	}
+
+	/**
+	 * Returns the number of lines, including an unfinished last line.
+	 *
+	 * @return The number of lines
+	 */
+	public synchronized int getLineCount() {
+		update();
+		return lines + (indexed > tailStart ? 1 : 0);
+	}
+
+	/**
+	 * Returns the line that contains a component.
+	 *
+	 * @param  component The index of the component
+	 * @return The line, which is {@link #getLineCount} if the component is
+	 *  after the last
+	 */
+	public synchronized int getLineOf(int component) {
+		update();
+		if (component >= tailStart)
+			return lines;
+		int line = Arrays.binarySearch(lineStarts, 0, lines, component);
+		return line >= 0 ? line : -line - 2;
+	}
+
+	/**
+	 * Returns the line at a y offset from the top of the first line, clamped
+	 * to the first and last lines.
+	 *
+	 * @param  y The y offset
+	 * @return The line, or -1 if there are no components
+	 */
+	synchronized int getLineAt(int y) {
+		update();
+		int count = getLineCount();
+		if (count == 0)
+			return -1;
+		if (y >= nextTop)
+			return count - 1;
+		int line = Arrays.binarySearch(lineTops, 0, lines, y);
+		if (line < 0)
+			line = -line - 2;
+		else while (line > 0 && lineTops[line - 1] == y)
+			line--; // The first of several empty lines
+		return Math.max(0, Math.min(line, count - 1));
+	}
+
+	/**
+	 * Returns the index of the first component of a line.
+	 *
+	 * @param  line The line
+	 * @return The index of its first component
+	 */
+	synchronized int getLineStart(int line) {
+		return line < lines ? lineStarts[line] : tailStart;
+	}
+
+	/**
+	 * Returns the index after the last component of a line, including the
+	 * component that ends it.
+	 *
+	 * @param  line The line
+	 * @return The end of its components
+	 */
+	synchronized int getLineEnd(int line) {
+		return line + 1 < lines ? lineStarts[line + 1] : line + 1 == lines ?
+			tailStart : indexed;
+	}
+
+	/**
+	 * Returns the y offset of the top of a line from the top of the first
+	 * line.
+	 *
+	 * @param  line The line
+	 * @return The y offset
+	 */
+	synchronized int getLineTop(int line) {
+		return line < lines ? lineTops[line] : nextTop;
+	}
+
+	/**
+	 * Returns the height of a line.
+	 *
+	 * @param  line The line
+	 * @return The height
+	 */
+	synchronized int getLineHeight(int line) {
+		if (line < lines)
+			return getLineTop(line + 1) - lineTops[line];
+		int height = 0;
+		for (int i = tailStart; i < indexed; i++)
+			height = Math.max(height,
+				htmlComponents.get(i).getHtmlComponentHeight());
+		return height;
+	}
+
+	/**
+	 * Returns the components indexed.
+	 *
+	 * @return The components
+	 */
+	synchronized List<HtmlComponent> getHtmlComponents() {
+		update();
+		return htmlComponents;
+	}
+
+	/**
+	 * Extends the index with the components appended since the last update,
+	 * or rebuilds it if components have been replaced.
+	 */
+	private void update() {
+		List<HtmlComponent> components = htmlCanvas.getHtmlComponents();
+		int size = components == null ? 0 : components.size();
+		if (components != htmlComponents ||
+			htmlCanvas.getRevision() != revision || size < indexed) {
+			htmlComponents = components;
+			revision = htmlCanvas.getRevision();
+			lines = 0;
+			indexed = 0;
+			nextX = 0;
+			nextTop = 0;
+			tailStart = 0;
+		}
+		if (size > componentXs.length)
+			componentXs = Arrays.copyOf(componentXs,
+				Math.max(size, 2 * componentXs.length));
+
+		for (; indexed < size; indexed++) {
+			HtmlComponent component = components.get(indexed);
+			componentXs[indexed] = nextX;
+			if (!component.isLineEnd()) {
+				nextX += component.getAdvance();
+				continue;
+			}
+			if (lines + 1 >= lineStarts.length) {
+				lineStarts = Arrays.copyOf(lineStarts, 2 * lineStarts.length);
+				lineTops = Arrays.copyOf(lineTops, 2 * lineTops.length);
+			}
+			lineStarts[lines] = tailStart;
+			lineTops[lines] = nextTop;
+			lines++;
+			nextTop += component.getHtmlComponentHeight();
+			nextX = 0;
+			tailStart = indexed + 1;
+		}
+	}
+}
@@ -0,0 +1,663 @@
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Font;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A bounded buffer in front of a {@link HtmlPrinter}, for producers that may
+ * print faster than the event dispatch thread can keep up with. Printing to a
+ * {@code HtmlIngestQueue} only records what to print; the queued lines are
+ * printed and drawn on the event dispatch thread, a batch at a time.
+ *
+ * <p>Every call queues one operation, and at most {@link #getCapacity}
+ * operations are queued, so that the queue's memory is bounded however long
+ * its lines are. Operations are queued a line at a time; a line ends with
+ * {@link #println}, {@link #printBreak} or {@link #printHorizontalRule}, or
+ * after {@link #MAX_LINE_OPERATIONS} operations without one. When the queue
+ * is full, its {@link OverflowPolicy} decides what happens to the next line,
+ * or, for {@link OverflowPolicy#DROP_NEWEST}, to the next operations. Changes
+ * of {@code Font} and {@code Color} are kept even when the operations that
+ * made them are dropped.
+ *
+ * <p>The {@code HtmlPrinter} must only be printed to through its queue once
+ * one is created, and automatic drawing of it is prevented, as the queue
+ * draws after every batch. All methods are thread safe.
+ *
+ * @since October 19th, 2026
+ * @see HtmlPrinter
+ */
+public class HtmlIngestQueue {
+
+	/**
+	 * What to do with a line printed while the queue is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Waits for the event dispatch thread to make room. On the event
+		 * dispatch thread itself, prints the queued lines first instead.
+		 */
+		BLOCK,
+
+		/**
+		 * Drops the oldest queued lines to make room.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Drops each new operation that does not fit, keeping the end of any
+		 * line that was partly queued.
+		 */
+		DROP_NEWEST,
+
+		/**
+		 * Replaces the newest queued line and every line after it with a
+		 * single "N lines skipped" marker, until there is room again.
+		 */
+		COLLAPSE
+	}
+
+	/**
+	 * The default number of operations queued.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/**
+	 * The largest number of operations in a line; longer lines are split.
+	 */
+	public static final int MAX_LINE_OPERATIONS = 1024;
+
+	/**
+	 * The largest number of lines printed in one turn of the event dispatch
+	 * thread.
+	 */
+	private static final int MAX_BATCH_LINES = 512;
+
+	/**
+	 * A queued line: what to print, the number of its operations that print
+	 * fragments, the last {@code Font} and {@code Color} set while printing
+	 * it, those set by the dropped lines before it, whether any of its
+	 * operations were dropped and, for a marker, how many lines it replaces.
+	 */
+	private static class Line {
+		final List<Consumer<HtmlPrinter>> operations =
+			new ArrayList<Consumer<HtmlPrinter>>();
+		int fragments;
+		Font font;
+		Color color;
+		Font keptFont;
+		Color keptColor;
+		boolean truncated;
+		int skipped;
+	}
+
+	/**
+	 * The {@code HtmlPrinter} to print to.
+	 */
+	private final HtmlPrinter htmlPrinter;
+
+	/**
+	 * The largest number of operations queued.
+	 */
+	private final int capacity;
+
+	/**
+	 * The largest number of operations in a line, which is at most the
+	 * capacity so that every line fits.
+	 */
+	private final int maxLineOperations;
+
+	/**
+	 * What to do when the queue is full.
+	 */
+	private final OverflowPolicy overflowPolicy;
+
+	/**
+	 * The queued lines, oldest first.
+	 */
+	private final ArrayDeque<Line> lines = new ArrayDeque<Line>();
+
+	/**
+	 * The number of operations in the queued lines.
+	 */
+	private int queuedOperations;
+
+	/**
+	 * The line being printed.
+	 */
+	private Line line = new Line();
+
+	/**
+	 * Whether a batch has been posted to the event dispatch thread.
+	 */
+	private boolean drainPosted;
+
+	/**
+	 * The number of lines and operations dropped, the number of those
+	 * operations that printed fragments, the number of lines replaced by
+	 * markers, the number of times a producer waited, and the most
+	 * operations ever queued.
+	 */
+	private long droppedLines;
+	private long droppedOperations;
+	private long droppedFragments;
+	private long collapsedLines;
+	private long blocks;
+	private int highWaterMark;
+
+	/**
+	 * Constructs a {@code HtmlIngestQueue} with the default capacity.
+	 *
+	 * @param  htmlPrinter    The {@code HtmlPrinter} to print to
+	 * @param  overflowPolicy What to do when the queue is full
+	 */
+	public HtmlIngestQueue(HtmlPrinter htmlPrinter,
+		OverflowPolicy overflowPolicy) {
+		this(htmlPrinter, DEFAULT_CAPACITY, overflowPolicy);
+	}
+
+	/**
+	 * Constructs a {@code HtmlIngestQueue}.
+	 *
+	 * @param  htmlPrinter    The {@code HtmlPrinter} to print to
+	 * @param  capacity       The largest number of operations to queue
+	 * @param  overflowPolicy What to do when the queue is full
+	 */
+	public HtmlIngestQueue(HtmlPrinter htmlPrinter, int capacity,
+		OverflowPolicy overflowPolicy) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Bad capacity " + capacity);
+		this.htmlPrinter = htmlPrinter;
+		this.capacity = capacity;
+		this.maxLineOperations = Math.min(capacity, MAX_LINE_OPERATIONS);
+		this.overflowPolicy = overflowPolicy;
+		htmlPrinter.preventDrawing();
+	}
+
+	/**
+	 * Queues printing a {@code String} with the current {@code Color} and
+	 * {@code Font}.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#print
+	 */
+	public void print(String string) {
+		add(printer -> printer.print(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Bold.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printBold
+	 */
+	public void printBold(String string) {
+		add(printer -> printer.printBold(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Italic.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printItalic
+	 */
+	public void printItalic(String string) {
+		add(printer -> printer.printItalic(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Preformatted Text.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printPreformattedText
+	 */
+	public void printPreformattedText(String string) {
+		add(printer -> printer.printPreformattedText(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Header 1.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printHeading1
+	 */
+	public void printHeading1(String string) {
+		add(printer -> printer.printHeading1(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Header 2.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printHeading2
+	 */
+	public void printHeading2(String string) {
+		add(printer -> printer.printHeading2(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Header 3.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printHeading3
+	 */
+	public void printHeading3(String string) {
+		add(printer -> printer.printHeading3(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Header 4.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printHeading4
+	 */
+	public void printHeading4(String string) {
+		add(printer -> printer.printHeading4(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Header 5.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printHeading5
+	 */
+	public void printHeading5(String string) {
+		add(printer -> printer.printHeading5(string));
+	}
+
+	/**
+	 * Queues printing a {@code String} formatted as Header 6.
+	 *
+	 * @param string The {@code String} to print
+	 * @see HtmlPrinter#printHeading6
+	 */
+	public void printHeading6(String string) {
+		add(printer -> printer.printHeading6(string));
+	}
+
+	/**
+	 * Queues moving to the next line, ending the current one.
+	 *
+	 * @see HtmlPrinter#println
+	 */
+	public void println() {
+		endLine(HtmlPrinter::println);
+	}
+
+	/**
+	 * Queues printing a Break, ending the current line.
+	 *
+	 * @see HtmlPrinter#printBreak
+	 */
+	public void printBreak() {
+		endLine(HtmlPrinter::printBreak);
+	}
+
+	/**
+	 * Queues printing a Horizontal Rule, ending the current line.
+	 *
+	 * @see HtmlPrinter#printHorizontalRule
+	 */
+	public void printHorizontalRule() {
+		endLine(HtmlPrinter::printHorizontalRule);
+	}
+
+	/**
+	 * Queues setting the {@code Font} used for rendering Paragraph text.
+	 *
+	 * @param font The {@code Font} to set
+	 * @see HtmlPrinter#setFont
+	 */
+	public void setFont(Font font) {
+		add(printer -> printer.setFont(font), font, null);
+	}
+
+	/**
+	 * Queues setting the {@code Color} used for rendering Paragraph text.
+	 *
+	 * @param color The {@code Color} to set
+	 * @see HtmlPrinter#setColor
+	 */
+	public void setColor(Color color) {
+		add(printer -> printer.setColor(color), null, color);
+	}
+
+	/**
+	 * Queues the unfinished current line, if any, so that it is printed
+	 * without waiting for the line to end.
+	 */
+	public void flush() {
+		endLine(null);
+	}
+
+	/**
+	 * Returns the number of operations queued and not yet printed.
+	 *
+	 * @return The queue depth
+	 */
+	public synchronized int getDepth() {
+		return queuedOperations;
+	}
+
+	/**
+	 * Returns the largest number of operations ever queued at once.
+	 *
+	 * @return The high water mark
+	 */
+	public synchronized int getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * Returns the largest number of operations queued. A line that was
+	 * partly queued by {@link OverflowPolicy#DROP_NEWEST} may go over it by
+	 * the operations that end the line and restore its style.
+	 *
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns what happens to lines printed while the queue is full.
+	 *
+	 * @return The {@code OverflowPolicy}
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Returns the number of whole lines dropped by
+	 * {@link OverflowPolicy#DROP_OLDEST} or {@link OverflowPolicy#DROP_NEWEST},
+	 * or because a producer was interrupted while waiting for room.
+	 *
+	 * @return The number of lines dropped
+	 */
+	public synchronized long getDroppedLines() {
+		return droppedLines;
+	}
+
+	/**
+	 * Returns the number of operations dropped, whether with their lines or
+	 * one at a time by {@link OverflowPolicy#DROP_NEWEST}.
+	 *
+	 * @return The number of operations dropped
+	 */
+	public synchronized long getDroppedOperations() {
+		return droppedOperations;
+	}
+
+	/**
+	 * Returns the number of dropped operations that printed fragments of
+	 * text, rather than changing the style or ending a line.
+	 *
+	 * @return The number of fragments dropped
+	 */
+	public synchronized long getDroppedFragments() {
+		return droppedFragments;
+	}
+
+	/**
+	 * Returns the number of lines replaced by "lines skipped" markers.
+	 *
+	 * @return The number of lines collapsed
+	 */
+	public synchronized long getCollapsedLines() {
+		return collapsedLines;
+	}
+
+	/**
+	 * Returns the number of times a producer waited for room.
+	 *
+	 * @return The number of blocks
+	 */
+	public synchronized long getBlocks() {
+		return blocks;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("HtmlIngestQueue[policy=%s, depth=%d/%d, " +
+			"highWaterMark=%d, dropped=%d, droppedFragments=%d, " +
+			"collapsed=%d, blocks=%d]", overflowPolicy, queuedOperations,
+			capacity, highWaterMark, droppedLines, droppedFragments,
+			collapsedLines, blocks);
+	}
+
+	/**
+	 * Adds an operation that prints a fragment to the current line.
+	 *
+	 * @param operation The operation
+	 */
+	private void add(Consumer<HtmlPrinter> operation) {
+		add(operation, null, null);
+	}
+
+	/**
+	 * Adds an operation to the current line, queueing the line if it has
+	 * become too long. With {@link OverflowPolicy#DROP_NEWEST}, an operation
+	 * that does not fit is dropped instead.
+	 *
+	 * @param operation The operation
+	 * @param font      The {@code Font} it sets, or {@code null}
+	 * @param color     The {@code Color} it sets, or {@code null}
+	 */
+	private void add(Consumer<HtmlPrinter> operation, Font font,
+		Color color) {
+		synchronized (this) {
+			if (font != null)
+				line.font = font;
+			if (color != null)
+				line.color = color;
+			if (overflowPolicy == OverflowPolicy.DROP_NEWEST &&
+				queuedOperations + line.operations.size() >= capacity) {
+				// The style is restored from the line when it is printed
+				line.truncated = true;
+				droppedOperations++;
+				if (font == null && color == null)
+					droppedFragments++;
+				return;
+			}
+			line.operations.add(operation);
+			if (font == null && color == null)
+				line.fragments++;
+			if (line.operations.size() < maxLineOperations)
+				return;
+		}
+		endLine(null);
+	}
+
+	/**
+	 * Ends the current line and queues it, applying the
+	 * {@code OverflowPolicy} if the queue is full. With
+	 * {@link OverflowPolicy#BLOCK} on the event dispatch thread, queued
+	 * lines are printed to make room, without holding the queue's lock.
+	 *
+	 * @param lineEnd The operation that ends the line, or {@code null}
+	 */
+	private void endLine(Consumer<HtmlPrinter> lineEnd) {
+		while (!queueLine(lineEnd))
+			drain(); // Nothing else can make room
+	}
+
+	/**
+	 * Ends the current line, queues it and starts a new one, applying the
+	 * {@code OverflowPolicy} if the queue is full.
+	 *
+	 * @param  lineEnd The operation that ends the line, or {@code null}
+	 * @return false if the queue is full and must be drained on this thread
+	 *  first, true otherwise
+	 */
+	private synchronized boolean queueLine(Consumer<HtmlPrinter> lineEnd) {
+		int size = line.operations.size() + (lineEnd != null ? 1 : 0);
+		if (overflowPolicy == OverflowPolicy.BLOCK && isFull(size) &&
+			EventQueue.isDispatchThread())
+			return false;
+		if (lineEnd != null) {
+			if (line.operations.isEmpty() &&
+				overflowPolicy == OverflowPolicy.DROP_NEWEST &&
+				queuedOperations >= capacity) {
+				droppedOperations++;
+				line.truncated = true;
+				size--;
+			} else line.operations.add(lineEnd);
+		}
+		if (size == 0) {
+			if (line.truncated) {
+				// Every operation was dropped; only the style is left
+				Line dropped = line;
+				line = new Line();
+				keepStyle(dropped, line, true);
+			}
+			return true;
+		}
+		Line ended = line;
+		line = new Line();
+		while (isFull(size) &&
+			overflowPolicy != OverflowPolicy.DROP_NEWEST)
+			switch (overflowPolicy) {
+				case BLOCK:
+					blocks++;
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						drop(ended);
+						keepStyle(ended, line, true);
+						return true;
+					}
+					break;
+				case DROP_OLDEST:
+					Line oldest = lines.removeFirst();
+					queuedOperations -= oldest.operations.size();
+					drop(oldest);
+					keepStyle(oldest, lines.isEmpty() ? ended :
+						lines.getFirst(), false);
+					break;
+				default:
+					Line marker = lines.getLast();
+					if (marker.skipped == 0) {
+						lines.removeLast();
+						queuedOperations -= marker.operations.size();
+						Line replaced = marker;
+						marker = new Line();
+						marker.skipped = 1;
+						collapsedLines++;
+						keepStyle(replaced, marker, true);
+						lines.addLast(marker);
+					}
+					marker.skipped++;
+					collapsedLines++;
+					keepStyle(ended, marker, true);
+					return true;
+			}
+
+		lines.addLast(ended);
+		queuedOperations += size;
+		highWaterMark = Math.max(highWaterMark, queuedOperations);
+		if (!drainPosted) {
+			drainPosted = true;
+			EventQueue.invokeLater(this::drainAndRepost);
+		}
+		return true;
+	}
+
+	/**
+	 * Tests if a line of a number of operations does not fit in the queue.
+	 * A line always fits in an empty queue.
+	 *
+	 * @param  size The number of operations
+	 * @return true if the queue is full, false otherwise
+	 */
+	private boolean isFull(int size) {
+		return !lines.isEmpty() && queuedOperations + size > capacity;
+	}
+
+	/**
+	 * Counts a whole line as dropped.
+	 *
+	 * @param dropped The dropped {@code Line}
+	 */
+	private void drop(Line dropped) {
+		droppedLines++;
+		droppedOperations += dropped.operations.size();
+		droppedFragments += dropped.fragments;
+	}
+
+	/**
+	 * Makes a line that takes the place of a dropped line keep the
+	 * {@code Font} and {@code Color} in effect at the end of it. They are
+	 * applied before the line's own operations, or, for a marker, after its
+	 * text. Those the line already keeps are replaced only if the dropped
+	 * line came after the lines they were kept from.
+	 *
+	 * @param dropped The dropped {@code Line}
+	 * @param next    The {@code Line} that takes its place
+	 * @param newer   Whether the dropped line is newer than those {@code next}
+	 *                already keeps the style of
+	 */
+	private static void keepStyle(Line dropped, Line next, boolean newer) {
+		Font font = dropped.font != null ? dropped.font : dropped.keptFont;
+		Color color = dropped.color != null ? dropped.color :
+			dropped.keptColor;
+		if (font != null && (newer || next.keptFont == null))
+			next.keptFont = font;
+		if (color != null && (newer || next.keptColor == null))
+			next.keptColor = color;
+	}
+
+	/**
+	 * Prints a batch of lines and posts another batch if more are queued.
+	 * Runs on the event dispatch thread.
+	 */
+	private void drainAndRepost() {
+		if (drain())
+			EventQueue.invokeLater(this::drainAndRepost);
+	}
+
+	/**
+	 * Prints and draws a batch of queued lines. Runs on the event dispatch
+	 * thread, without holding the queue's lock while printing.
+	 *
+	 * @return true if more lines are queued, false otherwise
+	 */
+	private boolean drain() {
+		List<Line> batch = new ArrayList<Line>();
+		boolean more;
+		synchronized (this) {
+			while (batch.size() < MAX_BATCH_LINES && !lines.isEmpty()) {
+				Line queued = lines.removeFirst();
+				queuedOperations -= queued.operations.size();
+				batch.add(queued);
+			}
+			more = !lines.isEmpty();
+			drainPosted = more;
+			notifyAll();
+		}
+
+		for (Line queued : batch) {
+			if (queued.skipped > 0) {
+				htmlPrinter.printItalic(queued.skipped + " lines skipped");
+				htmlPrinter.println();
+			}
+			if (queued.keptFont != null)
+				htmlPrinter.setFont(queued.keptFont);
+			if (queued.keptColor != null)
+				htmlPrinter.setColor(queued.keptColor);
+			for (Consumer<HtmlPrinter> operation : queued.operations)
+				operation.accept(htmlPrinter);
+			if (queued.truncated && queued.font != null)
+				htmlPrinter.setFont(queued.font);
+			if (queued.truncated && queued.color != null)
+				htmlPrinter.setColor(queued.color);
+		}
+		if (!batch.isEmpty())
+			htmlPrinter.drawHtmlComponents();
+		return more;
+	}
+}
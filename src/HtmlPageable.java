@@ -0,0 +1,342 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.Printable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prints the {@link HtmlComponent}s of a {@link HtmlPrinter} with
+ * {@code java.awt.print}, one page per {@link PageFormat} page. Obtain one
+ * with {@link HtmlPrinter#getPageable} and pass it to
+ * {@link java.awt.print.PrinterJob#setPageable}.
+ *
+ * <p>Pages are split between lines using an index of the first component and
+ * y offset of every line, at full size, which is built once and extended as
+ * more components are printed; it is only rebuilt when components are
+ * replaced. The pages are found from the lines at the scale the document is
+ * printed at, and only found again when the document becomes wider and the
+ * scale changes. Each page is drawn
+ * by starting at its first line rather than laying out every line before it,
+ * so printing a long document, such as to a file through a
+ * {@link javax.print.StreamPrintService}, takes time proportional to its
+ * length. A page breaks after a horizontal rule in its lower half, rather
+ * than at the last line that fits. Documents wider than the page are scaled
+ * down to fit.
+ *
+ * @since October 19th, 2026
+ * @see HtmlPrinter#getPageable
+ */
+public class HtmlPageable implements Pageable, Printable {
+
+	/**
+	 * How far down a page, as a fraction of its height, a horizontal rule must
+	 * be for the page to break after it instead of at the last line that fits.
+	 */
+	private static final double RULE_BREAK_FRACTION = 0.5;
+
+	/**
+	 * The {@code HtmlComponent}s to print.
+	 */
+	private final List<HtmlComponent> htmlComponents;
+
+	/**
+	 * The {@code HtmlCanvas} the components are drawn by.
+	 */
+	private final HtmlCanvas htmlCanvas;
+
+	/**
+	 * The {@code PageFormat} of every page.
+	 */
+	private final PageFormat pageFormat;
+
+	/**
+	 * The index of the first component and the y offset, at full size, of
+	 * every indexed line, and whether it is a horizontal rule.
+	 */
+	private int[] lineStarts = new int[64];
+	private int[] lineTops = new int[64];
+	private boolean[] lineRules = new boolean[64];
+
+	/**
+	 * The number of indexed lines.
+	 */
+	private int lines;
+
+	/**
+	 * The index of the first component and the y offset of the first line
+	 * that has not been indexed.
+	 */
+	private int scanned;
+	private int lineTop;
+
+	/**
+	 * The index of the first component and the y offset of the first line of
+	 * every page found at the current scale.
+	 */
+	private int[] pageStarts = new int[16];
+	private int[] pageTops = new int[16];
+
+	/**
+	 * The number of pages found, and the number of indexed lines they were
+	 * found from.
+	 */
+	private int pages;
+	private int pagedLines;
+
+	/**
+	 * The index of the first component and the y offset of the line after
+	 * the last horizontal rule that pages were found from, or -1 if there is
+	 * none.
+	 */
+	private int ruleEnd;
+	private int ruleTop;
+
+	/**
+	 * The width of the widest line, the scale it is printed at, and the
+	 * height of a page at that scale.
+	 */
+	private int contentWidth;
+	private double scale;
+	private int pageHeight;
+
+	/**
+	 * The {@link HtmlCanvas#getRevision} that the index was built for.
+	 */
+	private int revision;
+
+	/**
+	 * Constructs a {@code HtmlPageable}. Use {@link HtmlPrinter#getPageable}
+	 * instead.
+	 *
+	 * @param  htmlComponents The {@code HtmlComponent}s to print
+	 * @param  htmlCanvas     The {@code HtmlCanvas} that draws them
+	 * @param  pageFormat     The {@code PageFormat} of every page
+	 */
+	HtmlPageable(List<HtmlComponent> htmlComponents, HtmlCanvas htmlCanvas,
+		PageFormat pageFormat) {
+		this.htmlComponents = htmlComponents;
+		this.htmlCanvas = htmlCanvas;
+		this.pageFormat = (PageFormat)pageFormat.clone();
+		setScale(1);
+		clear();
+	}
+
+	/**
+	 * Returns the number of pages, including any started by components
+	 * printed since the last call.
+	 *
+	 * @return The number of pages
+	 */
+	@Override
+	public synchronized int getNumberOfPages() {
+		update();
+		return pages + (hasTailPage() ? 1 : 0);
+	}
+
+	@Override
+	public PageFormat getPageFormat(int pageIndex) {
+		checkPage(pageIndex);
+		return (PageFormat)pageFormat.clone();
+	}
+
+	@Override
+	public Printable getPrintable(int pageIndex) {
+		checkPage(pageIndex);
+		return this;
+	}
+
+	@Override
+	public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) {
+		int from;
+		int top;
+		int bottom;
+		double scale;
+		synchronized (this) {
+			if (pageIndex < 0 || pageIndex >= getNumberOfPages())
+				return NO_SUCH_PAGE;
+			from = pageIndex < pages ? pageStarts[pageIndex] : scanned;
+			top = pageIndex < pages ? pageTops[pageIndex] : lineTop;
+			bottom = pageIndex + 1 < pages ? pageTops[pageIndex + 1] :
+				pageIndex + 1 == pages && hasTailPage() ? lineTop :
+				top + pageHeight;
+			scale = this.scale;
+		}
+
+		Graphics2D g = (Graphics2D)graphics.create();
+		try {
+			g.translate(pageFormat.getImageableX(),
+				pageFormat.getImageableY());
+			g.clip(new Rectangle2D.Double(0, 0,
+				pageFormat.getImageableWidth(),
+				pageFormat.getImageableHeight()));
+			g.scale(scale, scale);
+			htmlCanvas.getRenderingProfile().apply(g);
+			htmlCanvas.drawLines(g, from, top, bottom,
+				(int)(pageFormat.getImageableWidth() / scale));
+		} finally {
+			g.dispose();
+		}
+		return PAGE_EXISTS;
+	}
+
+	/**
+	 * Throws if a page does not exist.
+	 *
+	 * @param pageIndex The index of the page
+	 */
+	private void checkPage(int pageIndex) {
+		if (pageIndex < 0 || pageIndex >= getNumberOfPages())
+			throw new IndexOutOfBoundsException("No page " + pageIndex);
+	}
+
+	/**
+	 * Extends the index with the lines printed since the last update, or
+	 * rebuilds it if components have been replaced, then finds the pages of
+	 * the new lines, or of every line if the scale has changed.
+	 */
+	private void update() {
+		int size = htmlComponents.size();
+		if (htmlCanvas.getRevision() != revision || size < scanned) {
+			contentWidth = 0;
+			clear();
+		}
+
+		int width = contentWidth;
+		int lineWidth = 0;
+		for (int i = scanned; i < size; i++) {
+			HtmlComponent component = htmlComponents.get(i);
+			if (component.isLineEnd()) {
+				width = Math.max(width, lineWidth);
+				lineWidth = 0;
+				addLine(scanned, component.getHtmlComponentHeight(),
+					component.getKind() == HtmlComponent.Kind.HORIZONTAL_RULE);
+				scanned = i + 1;
+			} else lineWidth += component.getAdvance();
+		}
+		contentWidth = Math.max(width, lineWidth);
+		if (setScale(Math.min(1, pageFormat.getImageableWidth() /
+			contentWidth)))
+			clearPages();
+
+		for (; pagedLines < lines; pagedLines++)
+			paginate(pagedLines);
+	}
+
+	/**
+	 * Adds a line to the index.
+	 *
+	 * @param start  The index of the first component of the line
+	 * @param height The height of the line
+	 * @param rule   Whether the line is a horizontal rule
+	 */
+	private void addLine(int start, int height, boolean rule) {
+		if (lines == lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, 2 * lines);
+			lineTops = Arrays.copyOf(lineTops, 2 * lines);
+			lineRules = Arrays.copyOf(lineRules, 2 * lines);
+		}
+		lineStarts[lines] = start;
+		lineTops[lines] = lineTop;
+		lineRules[lines] = rule;
+		lines++;
+		lineTop += height;
+	}
+
+	/**
+	 * Finds the page of an indexed line, starting a page before it if it
+	 * does not fit on the current one.
+	 *
+	 * @param line The index of the line
+	 */
+	private void paginate(int line) {
+		int start = lineStarts[line];
+		int top = lineTops[line];
+		int bottom = line + 1 < lines ? lineTops[line + 1] : lineTop;
+		int pageTop = pageTops[pages - 1];
+		if (top > pageTop && bottom - pageTop > pageHeight) {
+			if (ruleEnd >= 0 && ruleTop > pageTop &&
+				ruleTop - pageTop >= pageHeight * RULE_BREAK_FRACTION)
+				addPage(ruleEnd, ruleTop);
+			else addPage(start, top);
+			// The lines after the rule may still not fit with this one
+			pageTop = pageTops[pages - 1];
+			if (top > pageTop && bottom - pageTop > pageHeight)
+				addPage(start, top);
+		}
+		if (lineRules[line]) {
+			ruleEnd = line + 1 < lines ? lineStarts[line + 1] : scanned;
+			ruleTop = bottom;
+		}
+	}
+
+	/**
+	 * Tests if the unfinished last line does not fit on the last indexed page.
+	 *
+	 * @return true if it needs a page of its own, false otherwise
+	 */
+	private boolean hasTailPage() {
+		int height = 0;
+		for (int i = scanned, size = htmlComponents.size(); i < size; i++)
+			height = Math.max(height,
+				htmlComponents.get(i).getHtmlComponentHeight());
+		int pageTop = pageTops[pages - 1];
+		return height > 0 && lineTop > pageTop &&
+			lineTop + height - pageTop > pageHeight;
+	}
+
+	/**
+	 * Adds a page to the index.
+	 *
+	 * @param start The index of the first component of the page
+	 * @param top   The y offset of the first line of the page
+	 */
+	private void addPage(int start, int top) {
+		if (pages == pageStarts.length) {
+			pageStarts = Arrays.copyOf(pageStarts, 2 * pages);
+			pageTops = Arrays.copyOf(pageTops, 2 * pages);
+		}
+		pageStarts[pages] = start;
+		pageTops[pages] = top;
+		pages++;
+	}
+
+	/**
+	 * Empties the index of lines and pages.
+	 */
+	private void clear() {
+		revision = htmlCanvas.getRevision();
+		lines = 0;
+		scanned = 0;
+		lineTop = 0;
+		clearPages();
+	}
+
+	/**
+	 * Forgets the pages found, leaving a single empty page.
+	 */
+	private void clearPages() {
+		pages = 0;
+		pagedLines = 0;
+		ruleEnd = -1;
+		addPage(0, 0);
+	}
+
+	/**
+	 * Sets the scale that lines are printed at.
+	 *
+	 * @param  scale The scale
+	 * @return true if the scale changed, false otherwise
+	 */
+	private boolean setScale(double scale) {
+		if (scale == this.scale)
+			return false;
+		this.scale = scale;
+		pageHeight = Math.max(1,
+			(int)(pageFormat.getImageableHeight() / scale));
+		return true;
+	}
+}
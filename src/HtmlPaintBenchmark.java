@@ -0,0 +1,232 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import java.util.Arrays;
+
+/**
+ * A headless benchmark of painting a {@link HtmlCanvas}. A document of
+ * text, headings, breaks and rules is printed, then a window sized view of
+ * it is painted into an image frame after frame, scrolling down by a step
+ * each frame as a scrolling window would. Besides the time taken by each
+ * frame, it records the bytes the painting thread allocated and the number
+ * and time of garbage collections during the measured frames. The results are
+ * written as JSON.
+ *
+ * <p>Usage: {@code java HtmlPaintBenchmark [--lines lines]
+ * [--frames count] [--warmup count] [--step pixels]
+ * [--profile QUALITY|BALANCED|SPEED]}.
+ *
+ * @since October 19th, 2026
+ * @see HtmlCanvas#paintComponent
+ */
+public class HtmlPaintBenchmark {
+
+	/**
+	 * The size of the view painted each frame.
+	 */
+	private static final int VIEW_WIDTH = 1200;
+	private static final int VIEW_HEIGHT = 800;
+
+	/**
+	 * Words to build the lines of the document from.
+	 */
+	private static final String[] WORDS = {"the", "renderer", "paints",
+		"lines", "of", "text", "with", "HtmlCanvas", "and", "scrolls",
+		"through", "a", "long", "document"};
+
+	/**
+	 * The canvas painted.
+	 */
+	private final HtmlCanvas htmlCanvas = new HtmlCanvas();
+
+	/**
+	 * The image frames are painted into.
+	 */
+	private final BufferedImage frame = new BufferedImage(VIEW_WIDTH,
+		VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+	/**
+	 * The number of pixels scrolled between frames.
+	 */
+	private final int step;
+
+	/**
+	 * Constructs a {@code HtmlPaintBenchmark}, printing its document.
+	 *
+	 * @param  lines   The number of lines of the document
+	 * @param  step    The number of pixels scrolled between frames
+	 * @param  profile The {@code HtmlRenderingProfile} to paint with
+	 */
+	public HtmlPaintBenchmark(int lines, int step,
+		HtmlRenderingProfile profile) {
+		this.step = step;
+		HtmlPrinter htmlPrinter = new HtmlPrinter(null, htmlCanvas);
+		htmlPrinter.preventDrawing();
+		htmlCanvas.setHtmlComponents(htmlPrinter.getHtmlComponents());
+		htmlCanvas.setRenderingProfile(profile);
+		htmlCanvas.setSize(VIEW_WIDTH, VIEW_HEIGHT);
+		for (int line = 0; line < lines; line++) {
+			if (line % 50 == 0)
+				htmlPrinter.printHeading2("Section " + line / 50);
+			else if (line % 50 == 49)
+				htmlPrinter.printHorizontalRule();
+			else {
+				htmlPrinter.setColor(line % 7 == 0 ? Color.BLUE :
+					Color.BLACK);
+				for (int word = 0; word < 10; word++)
+					if (word == 3)
+						htmlPrinter.printBold(WORDS[(line + word) %
+							WORDS.length] + " ");
+					else htmlPrinter.print(WORDS[(line + word) %
+						WORDS.length] + " ");
+			}
+			htmlPrinter.println();
+		}
+	}
+
+	/**
+	 * Paints frames, scrolling down by the step each frame and wrapping
+	 * around at the end of the document.
+	 *
+	 * @param  frames The number of frames to paint
+	 * @return The time taken by each frame, in nanoseconds
+	 */
+	public long[] run(int frames) {
+		int bottom = Math.max(1, htmlCanvas.getCanvasHeight() - VIEW_HEIGHT);
+		long[] nanos = new long[frames];
+		for (int i = 0; i < frames; i++) {
+			int top = (int)((long)i * step % bottom);
+			long start = System.nanoTime();
+			Graphics2D g = frame.createGraphics();
+			try {
+				g.translate(0, -top);
+				g.setClip(0, top, VIEW_WIDTH, VIEW_HEIGHT);
+				htmlCanvas.paintComponent(g);
+			} finally {
+				g.dispose();
+			}
+			nanos[i] = System.nanoTime() - start;
+		}
+		return nanos;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread, or -1 if
+	 * the JVM does not measure it.
+	 *
+	 * @return The number of bytes
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean allocations =
+			(com.sun.management.ThreadMXBean)threads;
+		if (!allocations.isThreadAllocatedMemorySupported() ||
+			!allocations.isThreadAllocatedMemoryEnabled())
+			return -1;
+		return allocations.getThreadAllocatedBytes(
+			Thread.currentThread().getId());
+	}
+
+	/**
+	 * Returns the total number and time, in milliseconds, of garbage
+	 * collections so far.
+	 *
+	 * @return The number and the time
+	 */
+	private static long[] getGarbageCollections() {
+		long[] collections = new long[2];
+		for (GarbageCollectorMXBean gc :
+			ManagementFactory.getGarbageCollectorMXBeans()) {
+			collections[0] += Math.max(0, gc.getCollectionCount());
+			collections[1] += Math.max(0, gc.getCollectionTime());
+		}
+		return collections;
+	}
+
+	/**
+	 * Formats the 50th, 99th and 100th percentiles and the mean of some
+	 * durations as a JSON object, in milliseconds.
+	 *
+	 * @param  nanos The durations, in nanoseconds
+	 * @return The percentiles
+	 */
+	private static String percentiles(long[] nanos) {
+		if (nanos.length == 0)
+			return "null";
+		long total = 0;
+		for (long value : nanos)
+			total += value;
+		Arrays.sort(nanos);
+		return String.format("{\"p50\":%.4f,\"p99\":%.4f,\"max\":%.4f," +
+			"\"mean\":%.4f}", nanos[nanos.length / 2] / 1e6,
+			nanos[Math.min(nanos.length - 1, nanos.length * 99 / 100)] / 1e6,
+			nanos[nanos.length - 1] / 1e6, total / 1e6 / nanos.length);
+	}
+
+	/**
+	 * Runs the benchmark with the options given on the command line and
+	 * prints the report.
+	 *
+	 * @param args Command line arguments, as described above
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+
+		int lines = 100000;
+		int frames = 2000;
+		int warmup = 500;
+		int step = 40;
+		HtmlRenderingProfile profile = HtmlRenderingProfile.BALANCED;
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for " +
+					args[i]);
+			switch (args[i]) {
+				case "--lines":
+					lines = Integer.parseInt(args[i + 1]);
+					break;
+				case "--frames":
+					frames = Integer.parseInt(args[i + 1]);
+					break;
+				case "--warmup":
+					warmup = Integer.parseInt(args[i + 1]);
+					break;
+				case "--step":
+					step = Integer.parseInt(args[i + 1]);
+					break;
+				case "--profile":
+					profile = HtmlRenderingProfile.valueOf(args[i + 1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " +
+						args[i]);
+			}
+		}
+		if (lines < 0 || frames <= 0 || warmup < 0 || step <= 0)
+			throw new IllegalArgumentException("Bad option value");
+
+		HtmlPaintBenchmark benchmark =
+			new HtmlPaintBenchmark(lines, step, profile);
+		benchmark.run(warmup);
+
+		long[] gcBefore = getGarbageCollections();
+		long allocatedBefore = getAllocatedBytes();
+		long[] nanos = benchmark.run(frames);
+		long allocatedAfter = getAllocatedBytes();
+		long[] gcAfter = getGarbageCollections();
+
+		System.out.printf("{\"lines\":%d,\"profile\":\"%s\",\"frames\":%d," +
+			"\"frameMillis\":%s,\"allocatedBytesPerFrame\":%d," +
+			"\"gcCount\":%d,\"gcMillis\":%d}%n", lines, profile, frames,
+			percentiles(nanos), allocatedBefore < 0 ? -1 :
+			(allocatedAfter - allocatedBefore) / frames,
+			gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+	}
+}
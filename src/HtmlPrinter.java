@@ -1,8 +1,10 @@
 import java.awt.Font;
 import java.awt.Color;
+import java.awt.print.PageFormat;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A client that manages printing to a {@link HtmlCanvas}. Usually
@@ -17,6 +19,83 @@ import java.util.ArrayList;
  * @see HtmlCanvas
  */
 public class HtmlPrinter {
+	/**
+	 * The state of a {@code HtmlPrinter} at some point while printing, which
+	 * it can be rolled back to with {@link HtmlPrinter#rollback}. Take one
+	 * with {@link HtmlPrinter#checkpoint}.
+	 */
+	public static final class Checkpoint {
+
+		/**
+		 * The {@code HtmlPrinter} the checkpoint was taken of.
+		 */
+		private final HtmlPrinter printer;
+
+		/**
+		 * The number of {@code HtmlComponent}s printed.
+		 */
+		private final int size;
+
+		/**
+		 * The current {@code Font} and {@code Color}.
+		 */
+		private final Font font;
+		private final Color color;
+
+		/**
+		 * Whether the line mark was shown, and its x coord.
+		 */
+		private final boolean lineMarkShown;
+		private final int lineMarkX;
+
+		/**
+		 * The total height of the finished lines, and the widths of the
+		 * widest line ended by a break and of the components since.
+		 */
+		private final int linesHeight;
+		private final int linesWidth;
+		private final int lineWidth;
+
+		/**
+		 * The {@code HtmlPrinter}'s count of edits when it was taken.
+		 */
+		private final int edits;
+
+		/**
+		 * Constructs a {@code Checkpoint} of the current state of a
+		 * {@code HtmlPrinter}.
+		 *
+		 * @param  printer The {@code HtmlPrinter}
+		 */
+		private Checkpoint(HtmlPrinter printer) {
+			this.printer = printer;
+			size = printer.htmlComponents.size();
+			font = printer.font;
+			color = printer.color;
+			lineMarkShown = printer.htmlCanvas.isLineMarkShown();
+			lineMarkX = printer.htmlCanvas.getLineMarkX();
+			linesHeight = printer.linesHeight;
+			linesWidth = printer.linesWidth;
+			lineWidth = printer.lineWidth;
+			edits = printer.edits;
+		}
+
+		/**
+		 * Returns the number of {@code HtmlComponent}s that had been printed.
+		 *
+		 * @return The number of components
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		@Override
+		public String toString() {
+			return "Checkpoint[size=" + size + ", font=" + font + ", color=" +
+				color + "]";
+		}
+	}
+
 	/**
 	 * The default {@code Font} used for rendering Paragraph text.
 	 */
@@ -68,6 +147,13 @@ public class HtmlPrinter {
 	 */
 	private static final int HORIZONTAL_RULE_HEIGHT = 8;
 
+	/**
+	 * The largest number of line pairs {@link HtmlPrinter#update} will compare
+	 * when computing a longest common subsequence; larger changed regions are
+	 * replaced as a whole.
+	 */
+	private static final long MAX_DIFF_CELLS = 1 << 22;
+
 	/**
 	 * The width, in pixels, of a single Monospaced character.
 	 */
@@ -105,11 +191,54 @@ public class HtmlPrinter {
 	 */
 	private boolean preventDrawing;
 
+	/**
+	 * The {@code HtmlTextPool} that printed text is deduplicated through, or
+	 * {@code null} to keep every {@code String} as printed.
+	 */
+	private HtmlTextPool textPool;
+
+	/**
+	 * The total height of the finished lines, which is the y offset of the
+	 * top of the last line from the top of the first.
+	 */
+	private int linesHeight;
+
+	/**
+	 * The width of the widest line ended by a break, and of the components
+	 * since the last break, as {@link HtmlCanvas} measures its width.
+	 */
+	private int linesWidth;
+	private int lineWidth;
+
+	/**
+	 * The number of times {@code HtmlComponent}s have been replaced or rolled
+	 * back, which a {@code Checkpoint} records when it is taken.
+	 */
+	private int edits;
+
+	/**
+	 * The sizes the {@code HtmlComponent}s were cut back to by edits, and
+	 * the counts of those edits, as a stack whose sizes increase from the
+	 * bottom; an edit that cuts back further hides those before it. The
+	 * first of these edits after a {@code Checkpoint} was taken cut back the
+	 * furthest since, so the {@code Checkpoint} is stale if it cut back to
+	 * less than its size.
+	 */
+	private int[] truncatedSizes = new int[8];
+	private int[] truncatedEdits = new int[8];
+	private int truncations;
+
+	/**
+	 * Publishes appended {@code HtmlComponent}s to subscribers.
+	 */
+	private final HtmlComponentPublisher publisher;
+
 	/**
 	 * Constructs a {@code HtmlPrinter} with a containing
 	 * {@code SimpleHtmlRenderer} and a {@code SimpleHtmlRenderer} to draw on.
 	 *
-	 * @param  browser    The {@code SimpleHtmlRenderer} container
+	 * @param  browser    The {@code SimpleHtmlRenderer} container, or
+	 *  {@code null} for a printer that is not shown in a window
 	 * @param  htmlCanvas The {@code HtmlCanvas} for drawing
 	 */
 	public HtmlPrinter(SimpleHtmlRenderer browser, HtmlCanvas htmlCanvas) {
@@ -119,10 +248,11 @@ public class HtmlPrinter {
 		font = DEFAULT_FONT;
 		color = DEFAULT_COLOR;
 		htmlComponents = new ArrayList<HtmlComponent>();
+		publisher = new HtmlComponentPublisher(htmlComponents);
 		preventDrawing = false;
 
-		MONOSPACED_CHAR_WIDTH = htmlCanvas.getFontMetrics(new Font(
-			Font.MONOSPACED, Font.PLAIN, DEFAULT_FONT.getSize()))
+		MONOSPACED_CHAR_WIDTH = HtmlFontMetrics.getFontMetrics(new Font(
+			Font.MONOSPACED, Font.PLAIN, DEFAULT_FONT.getSize()), htmlCanvas)
 			.stringWidth(" ");
 	}
 
@@ -136,14 +266,359 @@ public class HtmlPrinter {
 		return htmlComponents;
 	}
 
+	/**
+	 * Returns a {@code HtmlPageable} that prints the {@code HtmlComponent}s
+	 * managed by this {@code HtmlPrinter} on pages of the given format,
+	 * including any printed after it is created.
+	 *
+	 * @param  pageFormat The {@code PageFormat} of every page
+	 * @return The {@code HtmlPageable}
+	 */
+	public HtmlPageable getPageable(PageFormat pageFormat) {
+		return new HtmlPageable(htmlComponents, htmlCanvas, pageFormat);
+	}
+
 	/**
 	 * Draws the {@code HtmlComponent}s managed by this {@code HtmlPrinter} onto
 	 * the {@code HtmlCanvas} and deals with associated canvas resizing. This
 	 * method should only be called if automatic drawing prevention is enabled.
 	 */
 	public void drawHtmlComponents() {
+		publisher.flush();
 		htmlCanvas.repaint();
-		browser.cleanupAfterPrint();
+		if (browser != null)
+			browser.cleanupAfterPrint();
+	}
+
+	/**
+	 * Replaces the {@code HtmlComponent}s managed by this {@code HtmlPrinter}
+	 * with a new sequence, such as one printed by an off-screen
+	 * {@code HtmlPrinter}. Only lines that differ from the current contents
+	 * are replaced and repainted; the scroll position is kept.
+	 *
+	 * <p>Lines are compared by hash after trimming the common prefix and
+	 * suffix, and the remaining region is matched with a longest common
+	 * subsequence if it is small enough.
+	 *
+	 * @param newComponents The new {@code HtmlComponent}s to show
+	 */
+	public void update(List<HtmlComponent> newComponents) {
+		int[] oldStarts = getLineStarts(htmlComponents);
+		int[] newStarts = getLineStarts(newComponents);
+		int[] oldHashes = getLineHashes(htmlComponents, oldStarts);
+		int[] newHashes = getLineHashes(newComponents, newStarts);
+		int[] oldTops = getLineTops(htmlComponents, oldStarts);
+		int[] newTops = getLineTops(newComponents, newStarts);
+		int oldLines = oldHashes.length;
+		int newLines = newHashes.length;
+
+		int prefix = 0;
+		while (prefix < oldLines && prefix < newLines &&
+			linesEqual(htmlComponents, oldStarts, oldHashes, prefix,
+				newComponents, newStarts, newHashes, prefix))
+			prefix++;
+		int suffix = 0;
+		while (suffix < oldLines - prefix && suffix < newLines - prefix &&
+			linesEqual(htmlComponents, oldStarts, oldHashes,
+				oldLines - suffix - 1, newComponents, newStarts, newHashes,
+				newLines - suffix - 1))
+			suffix++;
+
+		List<int[]> hunks = getChangedLines(newComponents, oldStarts,
+			oldHashes, newStarts, newHashes, prefix, oldLines - suffix,
+			prefix, newLines - suffix);
+
+		// Work out what to repaint while the old lines are still here
+		int[] bands = new int[2 * hunks.size()];
+		for (int i = 0; i < hunks.size(); i++) {
+			int[] hunk = hunks.get(i);
+			int oldHeight = oldTops[hunk[1]] - oldTops[hunk[0]];
+			int newHeight = newTops[hunk[3]] - newTops[hunk[2]];
+			bands[2 * i] = Math.min(oldTops[hunk[0]], newTops[hunk[2]]);
+			bands[2 * i + 1] = oldHeight != newHeight ? Integer.MAX_VALUE :
+				bands[2 * i] + Math.max(newHeight, Math.max(
+				getLineExtent(htmlComponents, oldStarts, hunk[0], hunk[1]),
+				getLineExtent(newComponents, newStarts, hunk[2], hunk[3])));
+		}
+
+		// Apply from the end so earlier component indices stay valid
+		for (int i = hunks.size() - 1; i >= 0; i--) {
+			int[] hunk = hunks.get(i);
+			int from = oldStarts[hunk[0]];
+			htmlComponents.subList(from, oldStarts[hunk[1]]).clear();
+			htmlComponents.addAll(from, newComponents.subList(
+				newStarts[hunk[2]], newStarts[hunk[3]]));
+		}
+
+		if (!hunks.isEmpty()) {
+			linesHeight = newTops[newLines];
+			measureWidths();
+			truncated(oldStarts[hunks.get(0)[0]]);
+			htmlCanvas.contentsChanged();
+			if (publisher.hasSubscribers())
+				republish(hunks, oldStarts, newStarts);
+		}
+		if (preventDrawing || hunks.isEmpty())
+			return;
+		publisher.flush();
+		if (browser != null)
+			browser.cleanupAfterPrint();
+		for (int i = 0; i < bands.length; i += 2) {
+			htmlCanvas.repaintLines(bands[i], bands[i + 1]);
+			if (bands[i + 1] == Integer.MAX_VALUE)
+				break; // Everything below the change has moved
+		}
+	}
+
+	/**
+	 * Measures the widths of the lines of every {@code HtmlComponent}
+	 * again, after they have been replaced.
+	 */
+	private void measureWidths() {
+		linesWidth = 0;
+		lineWidth = 0;
+		for (int i = 0, size = htmlComponents.size(); i < size; i++)
+			measureWidth(htmlComponents.get(i));
+	}
+
+	/**
+	 * Adds an appended {@code HtmlComponent} to the widths of the lines.
+	 *
+	 * @param htmlComponent The {@code HtmlComponent}
+	 */
+	private void measureWidth(HtmlComponent htmlComponent) {
+		if (htmlComponent.getKind() == HtmlComponent.Kind.BREAK) {
+			linesWidth = Math.max(linesWidth, lineWidth);
+			lineWidth = 0;
+		} else lineWidth += htmlComponent.getHtmlComponentWidth();
+	}
+
+	/**
+	 * Records an edit that removed or replaced every {@code HtmlComponent}
+	 * from an index on, making stale the {@code Checkpoint}s of more
+	 * components than that.
+	 *
+	 * @param size The number of components left untouched
+	 */
+	private void truncated(int size) {
+		edits++;
+		while (truncations > 0 && truncatedSizes[truncations - 1] >= size)
+			truncations--;
+		if (truncations == truncatedSizes.length) {
+			truncatedSizes = Arrays.copyOf(truncatedSizes, 2 * truncations);
+			truncatedEdits = Arrays.copyOf(truncatedEdits, 2 * truncations);
+		}
+		truncatedSizes[truncations] = size;
+		truncatedEdits[truncations++] = edits;
+	}
+
+	/**
+	 * Tests if a {@code Checkpoint} was taken of this {@code HtmlPrinter}
+	 * and nothing printed before it has been removed or replaced since.
+	 *
+	 * @param  checkpoint The {@code Checkpoint}
+	 * @return true if it can be rolled back to, false otherwise
+	 */
+	private boolean isValid(Checkpoint checkpoint) {
+		if (checkpoint.printer != this ||
+			checkpoint.size > htmlComponents.size())
+			return false;
+		// Find the first edit since it was taken
+		int low = 0;
+		int high = truncations;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (truncatedEdits[middle] <= checkpoint.edits)
+				low = middle + 1;
+			else high = middle;
+		}
+		return low == truncations || truncatedSizes[low] >= checkpoint.size;
+	}
+
+	/**
+	 * Tells subscribers which {@code HtmlComponent}s an update replaced, one
+	 * changed region at a time, and publishes their replacements.
+	 *
+	 * @param hunks     The changed line ranges, in order
+	 * @param oldStarts The line starts of the replaced components
+	 * @param newStarts The line starts of the current components
+	 */
+	private void republish(List<int[]> hunks, int[] oldStarts,
+		int[] newStarts) {
+		for (int[] hunk : hunks) {
+			// The earlier regions have been replaced, so they line up
+			int from = newStarts[hunk[2]];
+			publisher.replace(from, oldStarts[hunk[1]] - oldStarts[hunk[0]]);
+			for (int i = from; i < newStarts[hunk[3]]; i++)
+				publisher.append(i, htmlComponents.get(i));
+		}
+	}
+
+	/**
+	 * Finds the changed regions between two sequences of lines, given as
+	 * {@code {oldFrom, oldTo, newFrom, newTo}} line ranges in order.
+	 *
+	 * @param  newComponents The new {@code HtmlComponent}s
+	 * @param  oldStarts     The line starts of the current components
+	 * @param  oldHashes     The line hashes of the current components
+	 * @param  newStarts     The line starts of the new components
+	 * @param  newHashes     The line hashes of the new components
+	 * @param  oldFrom       The first current line to compare
+	 * @param  oldTo         The end of the current lines to compare
+	 * @param  newFrom       The first new line to compare
+	 * @param  newTo         The end of the new lines to compare
+	 * @return The changed line ranges
+	 */
+	private List<int[]> getChangedLines(List<HtmlComponent> newComponents,
+		int[] oldStarts, int[] oldHashes, int[] newStarts, int[] newHashes,
+		int oldFrom, int oldTo, int newFrom, int newTo) {
+		List<int[]> hunks = new ArrayList<int[]>();
+		int oldCount = oldTo - oldFrom;
+		int newCount = newTo - newFrom;
+		if (oldCount == 0 && newCount == 0)
+			return hunks;
+		if (oldCount == 0 || newCount == 0 ||
+			(long)oldCount * newCount > MAX_DIFF_CELLS) {
+			hunks.add(new int[] {oldFrom, oldTo, newFrom, newTo});
+			return hunks;
+		}
+
+		// lengths[i][j] is the LCS length of old lines i.. and new lines j..
+		int[][] lengths = new int[oldCount + 1][newCount + 1];
+		for (int i = oldCount - 1; i >= 0; i--)
+			for (int j = newCount - 1; j >= 0; j--)
+				lengths[i][j] = linesEqual(htmlComponents, oldStarts,
+					oldHashes, oldFrom + i, newComponents, newStarts,
+					newHashes, newFrom + j) ? lengths[i + 1][j + 1] + 1 :
+					Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+
+		int i = 0;
+		int j = 0;
+		int hunkOld = 0;
+		int hunkNew = 0;
+		while (i < oldCount && j < newCount) {
+			if (lengths[i][j] == lengths[i + 1][j + 1] + 1 &&
+				linesEqual(htmlComponents, oldStarts, oldHashes, oldFrom + i,
+					newComponents, newStarts, newHashes, newFrom + j)) {
+				if (hunkOld < i || hunkNew < j)
+					hunks.add(new int[] {oldFrom + hunkOld, oldFrom + i,
+						newFrom + hunkNew, newFrom + j});
+				hunkOld = ++i;
+				hunkNew = ++j;
+			} else if (lengths[i + 1][j] >= lengths[i][j + 1])
+				i++;
+			else j++;
+		}
+		if (hunkOld < oldCount || hunkNew < newCount)
+			hunks.add(new int[] {oldFrom + hunkOld, oldTo, newFrom + hunkNew,
+				newTo});
+		return hunks;
+	}
+
+	/**
+	 * Returns the index of the first {@code HtmlComponent} of every line,
+	 * followed by the number of components. A line ends after each
+	 * {@link HtmlTag}.
+	 *
+	 * @param  components The {@code HtmlComponent}s to split into lines
+	 * @return The line starts
+	 */
+	private static int[] getLineStarts(List<HtmlComponent> components) {
+		int size = components.size();
+		int lines = 0;
+		for (int i = 0; i < size; i++)
+			if (components.get(i).isLineEnd() || i == size - 1)
+				lines++;
+		int[] starts = new int[lines + 1];
+		int line = 1;
+		for (int i = 0; i < size; i++)
+			if (components.get(i).isLineEnd() || i == size - 1)
+				starts[line++] = i + 1;
+		return starts;
+	}
+
+	/**
+	 * Returns the hash of every line.
+	 *
+	 * @param  components The {@code HtmlComponent}s
+	 * @param  starts     The line starts of the components
+	 * @return The line hashes
+	 */
+	private static int[] getLineHashes(List<HtmlComponent> components,
+		int[] starts) {
+		int[] hashes = new int[starts.length - 1];
+		for (int line = 0; line < hashes.length; line++) {
+			int hash = 1;
+			for (int i = starts[line]; i < starts[line + 1]; i++)
+				hash = hash * 31 + components.get(i).hashCode();
+			hashes[line] = hash;
+		}
+		return hashes;
+	}
+
+	/**
+	 * Returns the y offset of the top of every line, followed by the total
+	 * height of the lines, as laid out by {@link HtmlCanvas}.
+	 *
+	 * @param  components The {@code HtmlComponent}s
+	 * @param  starts     The line starts of the components
+	 * @return The line tops
+	 */
+	private static int[] getLineTops(List<HtmlComponent> components,
+		int[] starts) {
+		int[] tops = new int[starts.length];
+		for (int line = 1; line < starts.length; line++) {
+			HtmlComponent last = components.get(starts[line] - 1);
+			tops[line] = tops[line - 1] + (last.isLineEnd() ?
+				last.getHtmlComponentHeight() : 0);
+		}
+		return tops;
+	}
+
+	/**
+	 * Returns the height of the tallest {@code HtmlComponent} in a range of
+	 * lines, which may extend past the lines' own height.
+	 *
+	 * @param  components The {@code HtmlComponent}s
+	 * @param  starts     The line starts of the components
+	 * @param  from       The first line
+	 * @param  to         The end of the lines
+	 * @return The extent
+	 */
+	private static int getLineExtent(List<HtmlComponent> components,
+		int[] starts, int from, int to) {
+		int extent = 0;
+		for (int i = starts[from]; i < starts[to]; i++)
+			extent = Math.max(extent,
+				components.get(i).getHtmlComponentHeight());
+		return extent;
+	}
+
+	/**
+	 * Tests if two lines contain equal {@code HtmlComponent}s.
+	 *
+	 * @param  a       The first {@code HtmlComponent}s
+	 * @param  aStarts The line starts of the first components
+	 * @param  aHashes The line hashes of the first components
+	 * @param  aLine   The line of the first components
+	 * @param  b       The second {@code HtmlComponent}s
+	 * @param  bStarts The line starts of the second components
+	 * @param  bHashes The line hashes of the second components
+	 * @param  bLine   The line of the second components
+	 * @return true if equal, false otherwise
+	 */
+	private static boolean linesEqual(List<HtmlComponent> a, int[] aStarts,
+		int[] aHashes, int aLine, List<HtmlComponent> b, int[] bStarts,
+		int[] bHashes, int bLine) {
+		if (aHashes[aLine] != bHashes[bLine])
+			return false;
+		int length = aStarts[aLine + 1] - aStarts[aLine];
+		if (length != bStarts[bLine + 1] - bStarts[bLine])
+			return false;
+		for (int i = 0; i < length; i++)
+			if (!a.get(aStarts[aLine] + i).equals(b.get(bStarts[bLine] + i)))
+				return false;
+		return true;
 	}
 
 	/**
@@ -200,8 +675,9 @@ public class HtmlPrinter {
 	private void print(String string, Font font, Color color) {
 		breakIfDifferentSize(font);
 
-		htmlComponents.add(new HtmlFragment(string, font, color,
-			htmlCanvas));
+		if (textPool != null)
+			string = textPool.intern(string);
+		add(new HtmlFragment(string, font, color, htmlCanvas));
 
 		if (!preventDrawing)
 			drawHtmlComponents();
@@ -218,7 +694,7 @@ public class HtmlPrinter {
 			return;
 
 		HtmlComponent previousComponent = getLastComponent();
-		if (previousComponent instanceof HtmlFragment &&
+		if (previousComponent.getKind() == HtmlComponent.Kind.TEXT &&
 			((HtmlFragment)previousComponent).getFont().getSize() !=
 			font.getSize())
 			breakComponent(previousComponent);
@@ -301,7 +777,7 @@ public class HtmlPrinter {
 	 * @return The {@code Font}
 	 */
 	private Font getHeadingFont(int size) {
-		return new Font(font.getFontName(), font.getStyle() | Font.BOLD, size);
+		return new Font(font.getName(), font.getStyle() | Font.BOLD, size);
 	}
 
 	/**
@@ -322,7 +798,7 @@ public class HtmlPrinter {
 	 * @param string The String to print
 	 */
 	public void printBold(String string) {
-		print(string, new Font(font.getFontName(), font.getStyle() | Font.BOLD,
+		print(string, new Font(font.getName(), font.getStyle() | Font.BOLD,
 			font.getSize()));
 	}
 
@@ -333,7 +809,7 @@ public class HtmlPrinter {
 	 * @param string The String to print
 	 */
 	public void printItalic(String string) {
-		print(string, new Font(font.getFontName(), font.getStyle() |
+		print(string, new Font(font.getName(), font.getStyle() |
 				Font.ITALIC, font.getSize()));
 	}
 
@@ -343,7 +819,7 @@ public class HtmlPrinter {
 	 */
 	public void printBreak() {
 		breakIfNecessary();
-		htmlComponents.add(new HtmlTag("br", color, 0, BREAK_HEIGHT));
+		add(new HtmlTag("br", color, 0, BREAK_HEIGHT));
 		if (!preventDrawing)
 			drawHtmlComponents();
 	}
@@ -354,7 +830,7 @@ public class HtmlPrinter {
 	 */
 	public void printHorizontalRule() {
 		breakIfNecessary();
-		htmlComponents.add(new HtmlTag("hr", color, 0, HORIZONTAL_RULE_HEIGHT));
+		add(new HtmlTag("hr", color, 0, HORIZONTAL_RULE_HEIGHT));
 		if (!preventDrawing)
 			drawHtmlComponents();
 	}
@@ -367,8 +843,7 @@ public class HtmlPrinter {
 			return;
 
 		HtmlComponent previousComponent = getLastComponent();
-		if (!(previousComponent instanceof HtmlTag) ||
-			!((HtmlTag)previousComponent).getTag().equals("br"))
+		if (previousComponent.getKind() != HtmlComponent.Kind.BREAK)
 			breakComponent(previousComponent);
 	}
 
@@ -379,10 +854,24 @@ public class HtmlPrinter {
 	 * @param htmlComponent The {@code HtmlComponent} used to calculate height
 	 */
 	private void breakComponent(HtmlComponent htmlComponent) {
-		htmlComponents.add(new HtmlTag("br", Color.BLACK, 0,
+		add(new HtmlTag("br", Color.BLACK, 0,
 			htmlComponent.getHtmlComponentHeight()));
 	}
 
+	/**
+	 * Appends a {@code HtmlComponent}, keeping track of the height and width
+	 * of the lines.
+	 *
+	 * @param htmlComponent The {@code HtmlComponent} to append
+	 */
+	private void add(HtmlComponent htmlComponent) {
+		htmlComponents.add(htmlComponent);
+		publisher.append(htmlComponents.size() - 1, htmlComponent);
+		if (htmlComponent.isLineEnd())
+			linesHeight += htmlComponent.getHtmlComponentHeight();
+		measureWidth(htmlComponent);
+	}
+
 	/**
 	 * Returns the last {@link HtmlComponent} on the queue.
 	 * @return the last {@link HtmlComponent} on the queue.
@@ -391,6 +880,113 @@ public class HtmlPrinter {
 		return htmlComponents.get(htmlComponents.size() - 1);
 	}
 
+	/**
+	 * Returns a {@code Checkpoint} of what has been printed so far, the
+	 * current {@code Font} and {@code Color} and the line mark, which can
+	 * later be rolled back to.
+	 *
+	 * @return The {@code Checkpoint}
+	 */
+	public Checkpoint checkpoint() {
+		return new Checkpoint(this);
+	}
+
+	/**
+	 * Discards everything printed since a {@code Checkpoint} was taken and
+	 * restores the {@code Font}, {@code Color} and line mark it recorded,
+	 * such as to rewrite a status line in place. Only the lines from the one
+	 * the {@code Checkpoint} was taken in down are repainted. The
+	 * {@code HtmlComponent}s are removed from the end of the list, so the
+	 * time taken depends only on how many were printed since.
+	 *
+	 * <p>The {@code Checkpoint} stays valid, and can be rolled back to again
+	 * after printing more, as do those taken before it; only those taken
+	 * after it that held discarded components become stale. Likewise
+	 * {@link HtmlPrinter#update} makes stale only the {@code Checkpoint}s
+	 * holding components of the lines it replaces. The height and widths of
+	 * the lines are restored from the {@code Checkpoint}, so the canvas need
+	 * not measure them again.
+	 *
+	 * @param  checkpoint The {@code Checkpoint} to roll back to
+	 * @throws IllegalStateException if the {@code Checkpoint} was taken of
+	 *  another {@code HtmlPrinter} or is stale
+	 */
+	public void rollback(Checkpoint checkpoint) {
+		int size = htmlComponents.size();
+		if (!isValid(checkpoint))
+			throw new IllegalStateException("Stale " + checkpoint);
+
+		// The extent of the last line may be more than its height
+		int extent = 0;
+		for (int i = checkpoint.size; i < size; i++)
+			extent = Math.max(extent,
+				htmlComponents.get(i).getHtmlComponentHeight());
+		int bottom = linesHeight + extent;
+		if (size > checkpoint.size) {
+			htmlComponents.subList(checkpoint.size, size).clear();
+			linesHeight = checkpoint.linesHeight;
+			linesWidth = checkpoint.linesWidth;
+			lineWidth = checkpoint.lineWidth;
+			truncated(checkpoint.size);
+			if (htmlCanvas.getHtmlComponents() == htmlComponents)
+				htmlCanvas.contentsTruncated(checkpoint.size, linesHeight,
+					linesWidth, lineWidth);
+			else htmlCanvas.contentsChanged();
+			publisher.replace(checkpoint.size, size - checkpoint.size);
+		}
+		font = checkpoint.font;
+		color = checkpoint.color;
+
+		boolean lineMarkChanged = checkpoint.lineMarkShown !=
+			htmlCanvas.isLineMarkShown() ||
+			checkpoint.lineMarkX != htmlCanvas.getLineMarkX();
+		if (checkpoint.lineMarkShown)
+			htmlCanvas.setLineMark(checkpoint.lineMarkX);
+		else htmlCanvas.hideLineMark();
+		if (preventDrawing)
+			return;
+		publisher.flush();
+		if (browser != null)
+			browser.cleanupAfterPrint();
+		if (lineMarkChanged)
+			htmlCanvas.repaint(); // The mark runs the height of the canvas
+		else if (size > checkpoint.size)
+			htmlCanvas.repaintLines(checkpoint.linesHeight, bottom);
+	}
+
+	/**
+	 * Subscribes to the {@code HtmlComponent}s appended from now on, which
+	 * are published in batches whenever this {@code HtmlPrinter} draws and
+	 * every {@link HtmlComponentPublisher#MAX_BATCH_SIZE} components. The
+	 * {@code Subscriber} is called on the common {@code ForkJoinPool} and
+	 * never holds up printing; if it falls too far behind, its batches are
+	 * collapsed into one that resyncs it. Use {@link #getPublisher} for more
+	 * options.
+	 *
+	 * @param subscriber The {@code Subscriber}
+	 */
+	public void subscribe(HtmlComponentPublisher.Subscriber subscriber) {
+		publisher.subscribe(subscriber);
+	}
+
+	/**
+	 * Returns the {@code HtmlComponentPublisher} that publishes the
+	 * {@code HtmlComponent}s appended to this {@code HtmlPrinter}.
+	 *
+	 * @return The {@code HtmlComponentPublisher}
+	 */
+	public HtmlComponentPublisher getPublisher() {
+		return publisher;
+	}
+
+	/**
+	 * Publishes any {@code HtmlComponent}s not yet published and completes
+	 * every subscription, for when nothing more will be printed.
+	 */
+	public void closeSubscriptions() {
+		publisher.close();
+	}
+
 	/**
 	 * Draws a vertical line after the specified number of characters.
 	 *
@@ -442,6 +1038,17 @@ public class HtmlPrinter {
 		this.preventDrawing = preventDrawing;
 	}
 
+	/**
+	 * Sets the {@code HtmlTextPool} that printed text is deduplicated
+	 * through, so that fragments with the same text share one {@code String}.
+	 * By default no pool is used.
+	 *
+	 * @param textPool The {@code HtmlTextPool}, or {@code null} for none
+	 */
+	public void setTextPool(HtmlTextPool textPool) {
+		this.textPool = textPool;
+	}
+
 	/**
 	 * Prevents automatic redrawing of the {@code HtmlComponent}s managed by
 	 * this {@code HtmlPrinter} onto the {@code HtmlCanvas}. Improves
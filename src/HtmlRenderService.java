@@ -0,0 +1,486 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An embeddable HTTP service that renders tokenized HTML for other processes
+ * on the same machine. It listens on the loopback address only.
+ *
+ * <ul>
+ * <li>{@code POST /render.png} renders the request body, tokenized HTML in
+ * UTF-8 as read by {@link HtmlTokenPrinter}, to a PNG image.</li>
+ * <li>{@code POST /render.json} returns the layout of the request body as
+ * JSON: an array of {@code [kind, x, y, width, height, color, font, text]}
+ * entries, one per component.</li>
+ * <li>{@code GET /stats} returns latency and throughput statistics.</li>
+ * </ul>
+ *
+ * <p>Requests are rendered headlessly on a fixed pool of worker threads, each
+ * of which reuses its {@link HtmlCanvas}; font metrics are shared through
+ * {@link HtmlFontMetrics}. At most a fixed number of requests may wait for a
+ * worker; beyond that, requests are refused with {@code 503}. Images share
+ * a budget of pixels, so that only a few large images are held in memory at
+ * once; a worker waits for its image's share, and refuses the request with
+ * {@code 503} if it cannot get it in time. If the
+ * {@link HtmlFontMetricsCache#FILE_PROPERTY} system property names a file,
+ * font metrics are loaded from it on construction and saved to it on
+ * {@link #stop}.
+ *
+ * @since October 19th, 2026
+ * @see HtmlTokenPrinter
+ */
+public class HtmlRenderService {
+
+	/**
+	 * The largest request body accepted, in bytes.
+	 */
+	private static final int MAX_REQUEST_BYTES = 16 << 20;
+
+	/**
+	 * The largest image rendered, in pixels.
+	 */
+	private static final int MAX_IMAGE_PIXELS = 16 << 20;
+
+	/**
+	 * The most pixels of images being rendered at once, across all workers,
+	 * which bounds their memory to four bytes a pixel whatever the number of
+	 * threads.
+	 */
+	private static final int MAX_PIXELS_IN_FLIGHT = 64 << 20;
+
+	/**
+	 * How long a worker waits for its image's pixels to be free before
+	 * refusing the request.
+	 */
+	private static final long PIXEL_WAIT_SECONDS = 30;
+
+	/**
+	 * The HTTP server.
+	 */
+	private final HttpServer server;
+
+	/**
+	 * The threads that render requests.
+	 */
+	private final ExecutorService workers;
+
+	/**
+	 * Permits for requests that are being rendered or waiting for a worker.
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * Permits for the pixels of images being rendered, one per pixel.
+	 */
+	private final Semaphore pixels = new Semaphore(MAX_PIXELS_IN_FLIGHT, true);
+
+	/**
+	 * Each worker's {@code HtmlCanvas}.
+	 */
+	private final ThreadLocal<HtmlCanvas> canvases =
+		ThreadLocal.withInitial(HtmlCanvas::new);
+
+	/**
+	 * When this service was started, in nanoseconds.
+	 */
+	private final long startTime = System.nanoTime();
+
+	/**
+	 * Statistics on requests.
+	 */
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong latencyNanos = new AtomicLong();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	/**
+	 * Constructs a {@code HtmlRenderService} on a port of the loopback
+	 * address. It does not accept requests until {@link #start} is called.
+	 *
+	 * @param  port       The port to listen on, or 0 for any free port
+	 * @param  threads    The number of worker threads
+	 * @param  queueLimit The number of requests that may wait for a worker
+	 * @throws IOException if the server cannot be created
+	 */
+	public HtmlRenderService(int port, int threads, int queueLimit)
+		throws IOException {
+		server = HttpServer.create(new InetSocketAddress(
+			InetAddress.getLoopbackAddress(), port), 0);
+		workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "HtmlRenderService");
+			thread.setDaemon(true);
+			return thread;
+		});
+		permits = new Semaphore(threads + queueLimit);
+		Path fontMetricsCache = HtmlFontMetricsCache.getDefaultFile();
+		if (fontMetricsCache != null)
+			HtmlFontMetricsCache.load(fontMetricsCache);
+
+		server.createContext("/render.png", exchange ->
+			submit(exchange, true));
+		server.createContext("/render.json", exchange ->
+			submit(exchange, false));
+		server.createContext("/stats", exchange -> {
+			try {
+				respond(exchange, 200, "application/json",
+					getStats().getBytes(StandardCharsets.UTF_8));
+			} finally {
+				exchange.close();
+			}
+		});
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops accepting requests, waiting up to a delay for requests being
+	 * rendered to finish.
+	 *
+	 * @param  delaySeconds The longest time to wait
+	 * @throws IOException if the font metrics cache cannot be saved
+	 */
+	public void stop(int delaySeconds) throws IOException {
+		server.stop(delaySeconds);
+		workers.shutdown();
+		try {
+			workers.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		workers.shutdownNow();
+		Path fontMetricsCache = HtmlFontMetricsCache.getDefaultFile();
+		if (fontMetricsCache != null)
+			HtmlFontMetricsCache.save(fontMetricsCache);
+	}
+
+	/**
+	 * Returns the address this service listens on.
+	 *
+	 * @return The address
+	 */
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	 * Queues a render request for a worker, or refuses it if too many are
+	 * already waiting. Runs on the server's dispatcher thread.
+	 *
+	 * @param  exchange The request
+	 * @param  png      Whether to render a PNG rather than JSON
+	 * @throws IOException if refusing the request fails
+	 */
+	private void submit(HttpExchange exchange, boolean png)
+		throws IOException {
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			fail(exchange, 405, "Use POST");
+			return;
+		}
+		if (!permits.tryAcquire()) {
+			rejected.incrementAndGet();
+			fail(exchange, 503, "Too many requests");
+			return;
+		}
+		long start = System.nanoTime();
+		inFlight.incrementAndGet();
+		workers.execute(() -> {
+			try {
+				render(exchange, png);
+				long latency = System.nanoTime() - start;
+				completed.incrementAndGet();
+				latencyNanos.addAndGet(latency);
+				maxLatencyNanos.accumulateAndGet(latency, Math::max);
+			} catch (IOException e) {
+				failed.incrementAndGet();
+			} catch (RuntimeException e) {
+				failed.incrementAndGet();
+				failUnlessResponded(exchange, e);
+			} finally {
+				inFlight.decrementAndGet();
+				permits.release();
+				exchange.close();
+			}
+		});
+	}
+
+	/**
+	 * Renders a request and sends the response. Runs on a worker thread.
+	 *
+	 * @param  exchange The request
+	 * @param  png      Whether to render a PNG rather than JSON
+	 * @throws IOException if reading the request or responding fails
+	 */
+	private void render(HttpExchange exchange, boolean png)
+		throws IOException {
+		HtmlCanvas htmlCanvas = canvases.get();
+		HtmlPrinter htmlPrinter = new HtmlPrinter(null, htmlCanvas);
+		htmlPrinter.preventDrawing();
+		htmlCanvas.setHtmlComponents(htmlPrinter.getHtmlComponents());
+		try {
+			try (Reader reader = new InputStreamReader(new LimitedInputStream(
+				exchange.getRequestBody(), MAX_REQUEST_BYTES),
+				StandardCharsets.UTF_8)) {
+				new HtmlTokenPrinter(htmlPrinter).print(reader);
+			} catch (IllegalStateException e) {
+				fail(exchange, 413, e.getMessage());
+				return;
+			}
+
+			if (png) {
+				long imagePixels = (long)htmlCanvas.getWidth() *
+					htmlCanvas.getHeight();
+				if (imagePixels > MAX_IMAGE_PIXELS) {
+					fail(exchange, 413, "Image too large; use /render.json");
+					return;
+				}
+				byte[] body;
+				if (!acquirePixels((int)imagePixels)) {
+					fail(exchange, 503, "Too many images being rendered");
+					return;
+				}
+				try {
+					BufferedImage image = htmlCanvas.toImage();
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					ImageIO.write(image, "png", out);
+					body = out.toByteArray();
+				} finally {
+					pixels.release((int)imagePixels);
+				}
+				respond(exchange, 200, "image/png", body);
+			} else respond(exchange, 200, "application/json",
+				getLayoutJson(htmlCanvas).getBytes(StandardCharsets.UTF_8));
+		} finally {
+			htmlCanvas.setHtmlComponents(null); // Release the document
+		}
+	}
+
+	/**
+	 * Waits for the pixels of an image to be free of the
+	 * {@link #MAX_PIXELS_IN_FLIGHT} budget.
+	 *
+	 * @param  imagePixels The number of pixels in the image
+	 * @return true if they were acquired, false if the wait timed out or was
+	 *  interrupted
+	 */
+	private boolean acquirePixels(int imagePixels) {
+		try {
+			return pixels.tryAcquire(imagePixels, PIXEL_WAIT_SECONDS,
+				TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the layout of a canvas as JSON.
+	 *
+	 * @param  htmlCanvas The {@code HtmlCanvas} to lay out
+	 * @return The layout
+	 */
+	private static String getLayoutJson(HtmlCanvas htmlCanvas) {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"width\":").append(htmlCanvas.getWidth())
+			.append(",\"height\":").append(htmlCanvas.getHeight())
+			.append(",\"components\":[");
+		htmlCanvas.layOut((component, x, y) -> {
+			if (json.charAt(json.length() - 1) != '[')
+				json.append(',');
+			json.append("[\"").append(component.getKind()).append("\",")
+				.append(x).append(',').append(y).append(',')
+				.append(component.getHtmlComponentWidth()).append(',')
+				.append(component.getHtmlComponentHeight()).append(',')
+				.append(component.getColor().getRGB() & 0xFFFFFF);
+			if (component instanceof HtmlFragment) {
+				HtmlFragment fragment = (HtmlFragment)component;
+				Font font = fragment.getFont();
+				json.append(",\"");
+				appendEscaped(json, font.getFamily() + " " + font.getStyle() +
+					" " + font.getSize());
+				json.append("\",\"");
+				appendEscaped(json, fragment.getText());
+				json.append('"');
+			}
+			json.append(']');
+		});
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Appends a string to JSON, escaped.
+	 *
+	 * @param json The JSON to append to
+	 * @param text The string to escape
+	 */
+	private static void appendEscaped(StringBuilder json, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char ch = text.charAt(i);
+			if (ch == '"' || ch == '\\')
+				json.append('\\').append(ch);
+			else if (ch < 0x20)
+				json.append(String.format("\\u%04x", (int)ch));
+			else json.append(ch);
+		}
+	}
+
+	/**
+	 * Returns the statistics of this service as JSON.
+	 *
+	 * @return The statistics
+	 */
+	public String getStats() {
+		long done = completed.get();
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		return String.format("{\"completed\":%d,\"rejected\":%d," +
+			"\"failed\":%d,\"inFlight\":%d,\"meanLatencyMillis\":%.3f," +
+			"\"maxLatencyMillis\":%.3f,\"requestsPerSecond\":%.3f}", done,
+			rejected.get(), failed.get(), inFlight.get(),
+			done == 0 ? 0 : latencyNanos.get() / 1e6 / done,
+			maxLatencyNanos.get() / 1e6, done / seconds);
+	}
+
+	/**
+	 * Sends a response.
+	 *
+	 * @param  exchange    The request
+	 * @param  status      The HTTP status code
+	 * @param  contentType The type of the body
+	 * @param  body        The body
+	 * @throws IOException if responding fails
+	 */
+	private static void respond(HttpExchange exchange, int status,
+		String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Sends an error response and closes the exchange.
+	 *
+	 * @param  exchange The request
+	 * @param  status   The HTTP status code
+	 * @param  message  The error message
+	 * @throws IOException if responding fails
+	 */
+	private static void fail(HttpExchange exchange, int status,
+		String message) throws IOException {
+		try {
+			respond(exchange, status, "text/plain; charset=utf-8",
+				(message + "\n").getBytes(StandardCharsets.UTF_8));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Sends a 500 response with the message of an error that stopped a
+	 * request from being rendered, unless a response has already been
+	 * started.
+	 *
+	 * @param exchange The request
+	 * @param error    The error
+	 */
+	private static void failUnlessResponded(HttpExchange exchange,
+		RuntimeException error) {
+		if (exchange.getResponseCode() != -1)
+			return; // The headers are out; closing cuts the body short
+		try {
+			fail(exchange, 500, "Internal error: " + error);
+		} catch (IOException e) {} // The client has gone
+	}
+
+	/**
+	 * An {@code InputStream} that fails once more than a limit has been read.
+	 */
+	private static class LimitedInputStream extends InputStream {
+		private final InputStream in;
+		private long remaining;
+
+		LimitedInputStream(InputStream in, long limit) {
+			this.in = in;
+			remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0)
+				count(1);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length)
+			throws IOException {
+			int read = in.read(buffer, offset, length);
+			if (read > 0)
+				count(read);
+			return read;
+		}
+
+		private void count(int read) {
+			remaining -= read;
+			if (remaining < 0)
+				throw new IllegalStateException("Request too large");
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Runs a {@code HtmlRenderService} until the process is stopped.
+	 *
+	 * @param args The port, number of worker threads and queue limit, all
+	 *  optional
+	 * @throws IOException if the server cannot be created
+	 */
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) :
+			Runtime.getRuntime().availableProcessors();
+		int queueLimit = args.length > 2 ? Integer.parseInt(args[2]) :
+			4 * threads;
+
+		HtmlRenderService service = new HtmlRenderService(port, threads,
+			queueLimit);
+		service.start();
+		System.out.println("Listening on http:/" + service.getAddress());
+	}
+}
@@ -0,0 +1,95 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * The rendering hints a {@link HtmlCanvas} paints with, trading quality for
+ * speed. Fractional metrics stay off in every profile, since
+ * {@link HtmlFragment}s are measured with integer metrics and would otherwise
+ * overlap or leave gaps.
+ *
+ * @since October 19th, 2026
+ * @see HtmlCanvas#setRenderingProfile
+ */
+public enum HtmlRenderingProfile {
+
+	/**
+	 * Antialiased shapes and text, favoring quality everywhere.
+	 */
+	QUALITY(RenderingHints.VALUE_ANTIALIAS_ON,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_ON,
+		RenderingHints.VALUE_RENDER_QUALITY),
+
+	/**
+	 * Antialiased text only, with default rendering.
+	 */
+	BALANCED(RenderingHints.VALUE_ANTIALIAS_OFF,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_ON,
+		RenderingHints.VALUE_RENDER_DEFAULT),
+
+	/**
+	 * No antialiasing, favoring speed everywhere.
+	 */
+	SPEED(RenderingHints.VALUE_ANTIALIAS_OFF,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_OFF,
+		RenderingHints.VALUE_RENDER_SPEED);
+
+	/**
+	 * The keys of the hints applied, and the value each has by default.
+	 */
+	private static final RenderingHints.Key[] KEYS = {
+		RenderingHints.KEY_ANTIALIASING, RenderingHints.KEY_TEXT_ANTIALIASING,
+		RenderingHints.KEY_RENDERING, RenderingHints.KEY_FRACTIONALMETRICS,
+		RenderingHints.KEY_COLOR_RENDERING,
+		RenderingHints.KEY_ALPHA_INTERPOLATION};
+	private static final Object[] DEFAULTS = {
+		RenderingHints.VALUE_ANTIALIAS_DEFAULT,
+		RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT,
+		RenderingHints.VALUE_RENDER_DEFAULT,
+		RenderingHints.VALUE_FRACTIONALMETRICS_DEFAULT,
+		RenderingHints.VALUE_COLOR_RENDER_DEFAULT,
+		RenderingHints.VALUE_ALPHA_INTERPOLATION_DEFAULT};
+
+	/**
+	 * The value of each hint in {@link #KEYS}.
+	 */
+	private final Object[] values;
+
+	/**
+	 * Constructs a {@code HtmlRenderingProfile}.
+	 *
+	 * @param  antialiasing     The value for
+	 *  {@link RenderingHints#KEY_ANTIALIASING}
+	 * @param  textAntialiasing The value for
+	 *  {@link RenderingHints#KEY_TEXT_ANTIALIASING}
+	 * @param  rendering        The value for
+	 *  {@link RenderingHints#KEY_RENDERING}
+	 */
+	HtmlRenderingProfile(Object antialiasing, Object textAntialiasing,
+		Object rendering) {
+		boolean speed = rendering == RenderingHints.VALUE_RENDER_SPEED;
+		values = new Object[] {antialiasing, textAntialiasing, rendering,
+			RenderingHints.VALUE_FRACTIONALMETRICS_OFF, speed ?
+			RenderingHints.VALUE_COLOR_RENDER_SPEED :
+			RenderingHints.VALUE_COLOR_RENDER_DEFAULT, speed ?
+			RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED :
+			RenderingHints.VALUE_ALPHA_INTERPOLATION_DEFAULT};
+	}
+
+	/**
+	 * Applies this profile's rendering hints to a {@code Graphics2D}. Only
+	 * hints that differ are set, since setting a hint the
+	 * {@code Graphics2D} keeps no state for copies its hints into a new map,
+	 * which would be garbage every frame.
+	 *
+	 * @param g The {@code Graphics2D} to paint with
+	 */
+	public void apply(Graphics2D g) {
+		for (int i = 0; i < KEYS.length; i++) {
+			// A hint with no value is at its default
+			Object value = g.getRenderingHint(KEYS[i]);
+			if (value != values[i] &&
+				(value != null || values[i] != DEFAULTS[i]))
+				g.setRenderingHint(KEYS[i], values[i]);
+		}
+	}
+}
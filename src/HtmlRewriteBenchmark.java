@@ -0,0 +1,271 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+
+import java.util.Arrays;
+
+/**
+ * A benchmark of rewriting the end of a document in place, as a status line
+ * or progress bar does. A document is printed, a
+ * {@link HtmlPrinter.Checkpoint} is taken, and the status lines after it are
+ * then rewritten over and over, either by rolling back to the checkpoint or
+ * by printing the whole document again off screen and passing it to
+ * {@link HtmlPrinter#update}, which was the only option before checkpoints.
+ * The time taken by each rewrite is written as JSON.
+ *
+ * <p>The rewrites are drawn as they are printed. If there is a display, the
+ * printer is that of a {@link SimpleHtmlRenderer}, whose window is not shown
+ * but is resized after every print; if not, the canvas is resized after
+ * every rewrite as the renderer would.
+ *
+ * <p>Usage: {@code java HtmlRewriteBenchmark [--lines lines]
+ * [--rewrites count] [--status lines] [--rebuilds count]}.
+ *
+ * @since October 19th, 2026
+ * @see HtmlPrinter#rollback
+ */
+public class HtmlRewriteBenchmark {
+
+	/**
+	 * Words to build the lines of the document from.
+	 */
+	private static final String[] WORDS = {"the", "renderer", "prints",
+		"lines", "of", "text", "with", "HtmlPrinter", "and", "rewrites",
+		"its", "status", "in", "place"};
+
+	/**
+	 * The number of lines of the document before the status lines.
+	 */
+	private final int lines;
+
+	/**
+	 * The number of status lines rewritten each time.
+	 */
+	private final int statusLines;
+
+	/**
+	 * Constructs a {@code HtmlRewriteBenchmark}.
+	 *
+	 * @param  lines       The number of lines of the document
+	 * @param  statusLines The number of status lines rewritten each time
+	 */
+	public HtmlRewriteBenchmark(int lines, int statusLines) {
+		this.lines = lines;
+		this.statusLines = statusLines;
+	}
+
+	/**
+	 * Rewrites the status lines by rolling back to a checkpoint.
+	 *
+	 * @param  rewrites The number of times to rewrite them
+	 * @return The time taken by each rewrite, in nanoseconds
+	 */
+	public long[] runRollbacks(int rewrites) {
+		SimpleHtmlRenderer renderer = newRenderer();
+		HtmlCanvas htmlCanvas = renderer == null ? new HtmlCanvas() :
+			renderer.getHtmlCanvas();
+		HtmlPrinter htmlPrinter = newPrinter(renderer, htmlCanvas);
+		printDocument(htmlPrinter);
+		HtmlPrinter.Checkpoint checkpoint = htmlPrinter.checkpoint();
+		printStatus(htmlPrinter, 0);
+
+		long[] nanos = new long[rewrites];
+		for (int i = 0; i < rewrites; i++) {
+			long start = System.nanoTime();
+			htmlPrinter.rollback(checkpoint);
+			printStatus(htmlPrinter, i + 1);
+			resize(htmlCanvas);
+			nanos[i] = System.nanoTime() - start;
+		}
+		close(renderer);
+		return nanos;
+	}
+
+	/**
+	 * Rewrites the status lines by printing the whole document again and
+	 * updating the printer with it.
+	 *
+	 * @param  rewrites The number of times to rewrite them
+	 * @return The time taken by each rewrite, in nanoseconds
+	 */
+	public long[] runRebuilds(int rewrites) {
+		SimpleHtmlRenderer renderer = newRenderer();
+		HtmlCanvas htmlCanvas = renderer == null ? new HtmlCanvas() :
+			renderer.getHtmlCanvas();
+		HtmlPrinter htmlPrinter = newPrinter(renderer, htmlCanvas);
+		printDocument(htmlPrinter);
+		printStatus(htmlPrinter, 0);
+
+		long[] nanos = new long[rewrites];
+		for (int i = 0; i < rewrites; i++) {
+			long start = System.nanoTime();
+			HtmlPrinter offscreen = new HtmlPrinter(null, htmlCanvas);
+			offscreen.preventDrawing();
+			printDocument(offscreen);
+			printStatus(offscreen, i + 1);
+			htmlPrinter.update(offscreen.getHtmlComponents());
+			resize(htmlCanvas);
+			nanos[i] = System.nanoTime() - start;
+		}
+		close(renderer);
+		return nanos;
+	}
+
+	/**
+	 * Returns a new {@code SimpleHtmlRenderer} whose window is not shown, if
+	 * there is a display.
+	 *
+	 * @return The {@code SimpleHtmlRenderer}, or {@code null} if headless
+	 */
+	private static SimpleHtmlRenderer newRenderer() {
+		return GraphicsEnvironment.isHeadless() ? null :
+			new SimpleHtmlRenderer(SimpleHtmlRenderer.DEFAULT_WINDOW_WIDTH,
+			SimpleHtmlRenderer.DEFAULT_WINDOW_HEIGHT, false);
+	}
+
+	/**
+	 * Returns a {@code HtmlPrinter} that draws as it prints.
+	 *
+	 * @param  renderer   The {@code SimpleHtmlRenderer} to print in, or
+	 *  {@code null} for none
+	 * @param  htmlCanvas The {@code HtmlCanvas} to print to
+	 * @return The {@code HtmlPrinter}
+	 */
+	private static HtmlPrinter newPrinter(SimpleHtmlRenderer renderer,
+		HtmlCanvas htmlCanvas) {
+		if (renderer != null)
+			return renderer.getHtmlPrinter();
+		HtmlPrinter htmlPrinter = new HtmlPrinter(null, htmlCanvas);
+		htmlCanvas.setHtmlComponents(htmlPrinter.getHtmlComponents());
+		return htmlPrinter;
+	}
+
+	/**
+	 * Closes the window of a renderer.
+	 *
+	 * @param renderer The {@code SimpleHtmlRenderer}, or {@code null}
+	 */
+	private static void close(SimpleHtmlRenderer renderer) {
+		if (renderer != null)
+			EventQueue.invokeLater(renderer::dispose);
+	}
+
+	/**
+	 * Resizes a canvas without a renderer to fit its components, as
+	 * {@link SimpleHtmlRenderer#cleanupAfterPrint} does.
+	 *
+	 * @param htmlCanvas The {@code HtmlCanvas}
+	 */
+	private static void resize(HtmlCanvas htmlCanvas) {
+		if (GraphicsEnvironment.isHeadless())
+			htmlCanvas.setPreferredSize(new Dimension(htmlCanvas.getWidth(),
+				htmlCanvas.getHeight()));
+	}
+
+	/**
+	 * Prints the lines of the document before the status lines, drawing
+	 * them once at the end.
+	 *
+	 * @param htmlPrinter The {@code HtmlPrinter} to print with
+	 */
+	private void printDocument(HtmlPrinter htmlPrinter) {
+		htmlPrinter.setPreventDrawing(true);
+		for (int line = 0; line < lines; line++) {
+			if (line % 50 == 0)
+				htmlPrinter.printHeading2("Section " + line / 50);
+			else for (int word = 0; word < 8; word++)
+				htmlPrinter.print(WORDS[(line + word) % WORDS.length] + " ");
+			htmlPrinter.println();
+		}
+		htmlPrinter.drawHtmlComponents();
+		htmlPrinter.setPreventDrawing(false);
+	}
+
+
+	/**
+	 * Prints the status lines, changing the {@code Color} and line mark as a
+	 * status display might.
+	 *
+	 * @param htmlPrinter The {@code HtmlPrinter} to print with
+	 * @param step        The number of the rewrite
+	 */
+	private void printStatus(HtmlPrinter htmlPrinter, int step) {
+		htmlPrinter.setColor(step % 2 == 0 ? Color.BLUE : Color.GRAY);
+		for (int line = 0; line < statusLines; line++) {
+			htmlPrinter.printBold("Step " + step + ": ");
+			htmlPrinter.print(line + " of " + statusLines + " tasks done");
+			htmlPrinter.println();
+		}
+		htmlPrinter.drawLineMark(step % 80);
+	}
+
+	/**
+	 * Formats the 50th, 99th and 100th percentiles and the mean of some
+	 * durations as a JSON object, in milliseconds.
+	 *
+	 * @param  nanos The durations, in nanoseconds
+	 * @return The percentiles
+	 */
+	private static String percentiles(long[] nanos) {
+		if (nanos.length == 0)
+			return "null";
+		long total = 0;
+		for (long value : nanos)
+			total += value;
+		Arrays.sort(nanos);
+		return String.format("{\"p50\":%.4f,\"p99\":%.4f,\"max\":%.4f," +
+			"\"mean\":%.4f}", nanos[nanos.length / 2] / 1e6,
+			nanos[Math.min(nanos.length - 1, nanos.length * 99 / 100)] / 1e6,
+			nanos[nanos.length - 1] / 1e6, total / 1e6 / nanos.length);
+	}
+
+	/**
+	 * Runs the benchmark with the options given on the command line and
+	 * prints the report.
+	 *
+	 * @param args Command line arguments, as described above
+	 */
+	public static void main(String[] args) {
+		int lines = 100000;
+		int rewrites = 100000;
+		int statusLines = 3;
+		int rebuilds = 20;
+
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for " +
+					args[i]);
+			int value = Integer.parseInt(args[i + 1]);
+			switch (args[i]) {
+				case "--lines":
+					lines = value;
+					break;
+				case "--rewrites":
+					rewrites = value;
+					break;
+				case "--status":
+					statusLines = value;
+					break;
+				case "--rebuilds":
+					rebuilds = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " +
+						args[i]);
+			}
+		}
+		if (lines < 0 || rewrites < 0 || statusLines <= 0 || rebuilds < 0)
+			throw new IllegalArgumentException("Bad option value");
+
+		HtmlRewriteBenchmark benchmark =
+			new HtmlRewriteBenchmark(lines, statusLines);
+		System.out.printf("{\"lines\":%d,\"statusLines\":%d," +
+			"\"renderer\":%b,\"rewrites\":%d,\"rollbackMillis\":%s," +
+			"\"rebuilds\":%d,\"rebuildMillis\":%s}%n", lines, statusLines,
+			!GraphicsEnvironment.isHeadless(), rewrites, percentiles(
+			benchmark.runRollbacks(rewrites)), rebuilds, percentiles(
+			benchmark.runRebuilds(rebuilds)));
+		System.exit(0);
+	}
+}
@@ -0,0 +1,269 @@
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import java.util.List;
+
+/**
+ * Lets the user select text on a {@link HtmlCanvas} by dragging the mouse,
+ * and copy it to the clipboard with the platform's copy shortcut. Positions
+ * are found with the canvas's {@link HtmlHitTester}, and only the selected
+ * part of the lines being painted is highlighted, so a selection costs
+ * nothing while it is off screen. Replacing the canvas's components clears
+ * the selection.
+ *
+ * @since October 19th, 2026
+ * @see HtmlHitTester
+ */
+public class HtmlSelection {
+
+	/**
+	 * The {@code Color} selected text is highlighted with.
+	 */
+	private static final Color HIGHLIGHT_COLOR = new Color(51, 153, 255, 96);
+
+	/**
+	 * The {@code HtmlCanvas} to select text on.
+	 */
+	private final HtmlCanvas htmlCanvas;
+
+	/**
+	 * The {@code HtmlHitTester} of the canvas.
+	 */
+	private final HtmlHitTester hitTester;
+
+	/**
+	 * Where the selection started and where it currently ends, or
+	 * {@code null} if nothing is selected.
+	 */
+	private HtmlHitTester.Position anchor;
+	private HtmlHitTester.Position focus;
+
+	/**
+	 * The {@link HtmlCanvas#getRevision} the selection was made in.
+	 */
+	private int revision;
+
+	/**
+	 * A reusable rectangle for the highlight of a line.
+	 */
+	private final Rectangle highlight = new Rectangle();
+
+	/**
+	 * Constructs a {@code HtmlSelection} and attaches it to a
+	 * {@code HtmlCanvas}.
+	 *
+	 * @param  htmlCanvas The {@code HtmlCanvas} to select text on
+	 */
+	@SuppressWarnings("deprecation") // The replacements need Java 9
+	public HtmlSelection(HtmlCanvas htmlCanvas) {
+		this.htmlCanvas = htmlCanvas;
+		hitTester = htmlCanvas.getHitTester();
+
+		MouseAdapter mouseAdapter = new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				htmlCanvas.requestFocusInWindow();
+				HtmlHitTester.Position position =
+					hitTester.hitTest(e.getX(), e.getY());
+				if (e.isShiftDown() && anchor != null && isCurrent())
+					select(anchor, position);
+				else select(position, position);
+			}
+
+			@Override
+			public void mouseDragged(MouseEvent e) {
+				if (anchor != null)
+					select(anchor, hitTester.hitTest(e.getX(), e.getY()));
+			}
+		};
+		htmlCanvas.addMouseListener(mouseAdapter);
+		htmlCanvas.addMouseMotionListener(mouseAdapter);
+
+		htmlCanvas.setFocusable(true);
+		int shortcutMask = GraphicsEnvironment.isHeadless() ?
+			InputEvent.CTRL_MASK :
+			Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
+		htmlCanvas.getInputMap(JComponent.WHEN_FOCUSED).put(
+			KeyStroke.getKeyStroke(KeyEvent.VK_C, shortcutMask), "copy");
+		htmlCanvas.getActionMap().put("copy", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				copy();
+			}
+		});
+		htmlCanvas.setSelection(this);
+	}
+
+	/**
+	 * Selects the text between two positions, repainting only the lines whose
+	 * highlight changes.
+	 *
+	 * @param anchor Where the selection starts, or {@code null} to select
+	 *  nothing
+	 * @param focus  Where the selection ends
+	 */
+	public void select(HtmlHitTester.Position anchor,
+		HtmlHitTester.Position focus) {
+		HtmlHitTester.Position oldFocus = isCurrent() ? this.focus : null;
+		HtmlHitTester.Position oldAnchor = isCurrent() ? this.anchor : null;
+		this.anchor = focus == null ? null : anchor;
+		this.focus = this.anchor == null ? null : focus;
+		revision = htmlCanvas.getRevision();
+
+		if (oldAnchor != null && oldAnchor.equals(anchor))
+			repaint(oldFocus, focus); // Only the end has moved
+		else {
+			repaint(oldAnchor, oldFocus);
+			repaint(anchor, focus);
+		}
+	}
+
+	/**
+	 * Selects nothing.
+	 */
+	public void clear() {
+		select(null, null);
+	}
+
+	/**
+	 * Returns the selected text, with a new line at the end of every line.
+	 *
+	 * @return The text, which is empty if nothing is selected
+	 */
+	public String getSelectedText() {
+		if (!isCurrent() || anchor == null)
+			return "";
+		HtmlHitTester.Position start = getStart();
+		HtmlHitTester.Position end = getEnd();
+		List<HtmlComponent> components = hitTester.getHtmlComponents();
+		StringBuilder text = new StringBuilder();
+		for (int i = start.getComponent(); i <= end.getComponent() &&
+			i < components.size(); i++) {
+			HtmlComponent component = components.get(i);
+			if (component.getKind() != HtmlComponent.Kind.TEXT) {
+				if (i < end.getComponent())
+					text.append('\n');
+				continue;
+			}
+			String fragment = ((HtmlFragment)component).getText();
+			text.append(fragment, i == start.getComponent() ?
+				start.getOffset() : 0, i == end.getComponent() ?
+				end.getOffset() : fragment.length());
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Copies the selected text to the system clipboard, if any is selected.
+	 */
+	public void copy() {
+		String text = getSelectedText();
+		if (!text.isEmpty())
+			Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
+				new StringSelection(text), null);
+	}
+
+	/**
+	 * Highlights the selected text in the lines that intersect a clip. Called
+	 * by {@link HtmlCanvas} after painting its components.
+	 *
+	 * @param g    The {@code Graphics2D} to paint with
+	 * @param clip The region being painted
+	 */
+	void paint(Graphics2D g, Rectangle clip) {
+		if (anchor == null || !isCurrent() || anchor.equals(focus))
+			return;
+		HtmlHitTester.Position start = getStart();
+		HtmlHitTester.Position end = getEnd();
+		int yMargin = htmlCanvas.getYMargin();
+		int firstLine = Math.max(hitTester.getLineAt(clip.y - yMargin),
+			hitTester.getLineOf(start.getComponent()));
+		int lastLine = Math.min(hitTester.getLineAt(clip.y + clip.height -
+			yMargin), hitTester.getLineOf(end.getComponent()));
+
+		g.setColor(HIGHLIGHT_COLOR);
+		for (int line = firstLine; line <= lastLine; line++) {
+			int lineStart = hitTester.getLineStart(line);
+			int lineEnd = hitTester.getLineEnd(line);
+			int left = hitTester.getX(start.getComponent() >= lineStart ?
+				start : new HtmlHitTester.Position(lineStart, 0));
+			int right = end.getComponent() < lineEnd ? hitTester.getX(end) :
+				getLineRight(lineEnd - 1);
+			highlight.setBounds(left, yMargin + hitTester.getLineTop(line),
+				right - left, hitTester.getLineHeight(line));
+			if (!highlight.isEmpty() && highlight.intersects(clip))
+				g.fill(highlight.intersection(clip));
+		}
+	}
+
+	/**
+	 * Returns the x coord of the end of a line.
+	 *
+	 * @param  last The index of the last component of the line
+	 * @return The x coord
+	 */
+	private int getLineRight(int last) {
+		HtmlComponent component = hitTester.getHtmlComponents().get(last);
+		// A line usually ends with a component that has no width
+		return hitTester.getX(new HtmlHitTester.Position(last, 0)) +
+			component.getAdvance();
+	}
+
+	/**
+	 * Repaints the lines between two positions, in either order.
+	 *
+	 * @param from One position, or {@code null}
+	 * @param to   The other position, or {@code null}
+	 */
+	private void repaint(HtmlHitTester.Position from,
+		HtmlHitTester.Position to) {
+		if (from == null || to == null)
+			return;
+		int first = hitTester.getLineOf(Math.min(from.getComponent(),
+			to.getComponent()));
+		int last = hitTester.getLineOf(Math.max(from.getComponent(),
+			to.getComponent()));
+		htmlCanvas.repaintLines(hitTester.getLineTop(first),
+			hitTester.getLineTop(last) + hitTester.getLineHeight(last));
+	}
+
+	/**
+	 * Tests if the selection was made in the current components.
+	 *
+	 * @return true if current, false otherwise
+	 */
+	private boolean isCurrent() {
+		return revision == htmlCanvas.getRevision();
+	}
+
+	/**
+	 * Returns the earlier end of the selection.
+	 *
+	 * @return The start
+	 */
+	private HtmlHitTester.Position getStart() {
+		return anchor.compareTo(focus) <= 0 ? anchor : focus;
+	}
+
+	/**
+	 * Returns the later end of the selection.
+	 *
+	 * @return The end
+	 */
+	private HtmlHitTester.Position getEnd() {
+		return anchor.compareTo(focus) <= 0 ? focus : anchor;
+	}
+}
@@ -0,0 +1,494 @@
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A headless soak test for {@link HtmlPrinter}. It prints a random mix of
+ * tokens at a target rate while the event dispatch thread repaints the
+ * bottom of the document, as a scrolling window would, and records sustained
+ * throughput, event dispatch thread latency, heap growth and garbage
+ * collection over time. The results are written as JSON.
+ *
+ * <p>Usage: {@code java HtmlSoakTest [--duration seconds] [--rate tokens]
+ * [--interval seconds] [--seed seed] [--mix kind=weight,...] [--pool slots]
+ * [--report file]}, where the token kinds are {@code text}, {@code heading},
+ * {@code bold}, {@code pre}, {@code break}, {@code rule} and {@code color},
+ * and {@code --pool} deduplicates text through a {@link HtmlTextPool}.
+ *
+ * @since October 19th, 2026
+ * @see HtmlPrinter
+ */
+public class HtmlSoakTest {
+
+	/**
+	 * The names of the token kinds, in the order of their weights.
+	 */
+	private static final String[] TOKEN_KINDS = {"text", "heading", "bold",
+		"pre", "break", "rule", "color"};
+
+	/**
+	 * The colors the {@code color} token switches between.
+	 */
+	private static final Color[] COLORS = {Color.BLACK, Color.BLUE,
+		Color.RED, Color.GREEN.darker(), Color.GRAY};
+
+	/**
+	 * Words to build text tokens from.
+	 */
+	private static final String[] WORDS = {"<html>", "<body>", "</p>", "the",
+		"renderer", "int", "value", "=", ";", "return", "    ", "class",
+		"HtmlPrinter", "print", "(", ")", "{", "}", "42", "lorem", "ipsum"};
+
+	/**
+	 * How often, in milliseconds, to repaint and to probe the event dispatch
+	 * thread.
+	 */
+	private static final int FRAME_MILLIS = 16;
+
+	/**
+	 * The width, in pixels, of the simulated window.
+	 */
+	private static final int WINDOW_WIDTH =
+		SimpleHtmlRenderer.DEFAULT_WINDOW_WIDTH;
+
+	/**
+	 * The height, in pixels, of the simulated window.
+	 */
+	private static final int WINDOW_HEIGHT =
+		SimpleHtmlRenderer.DEFAULT_WINDOW_HEIGHT;
+
+	/**
+	 * How long to run for, in nanoseconds.
+	 */
+	private final long durationNanos;
+
+	/**
+	 * The target number of tokens to print per second.
+	 */
+	private final int rate;
+
+	/**
+	 * How often to take a sample, in nanoseconds.
+	 */
+	private final long intervalNanos;
+
+	/**
+	 * The weight of each of {@link #TOKEN_KINDS}.
+	 */
+	private final int[] weights;
+
+	/**
+	 * The source of the token mix.
+	 */
+	private final Random random;
+
+	/**
+	 * The {@code HtmlTextPool} text is deduplicated through, or {@code null}.
+	 */
+	private final HtmlTextPool textPool;
+
+	/**
+	 * The {@code HtmlCanvas} being printed to.
+	 */
+	private final HtmlCanvas htmlCanvas;
+
+	/**
+	 * The {@code HtmlPrinter} under test.
+	 */
+	private final HtmlPrinter htmlPrinter;
+
+	/**
+	 * The image the simulated window is painted into.
+	 */
+	private final BufferedImage frame;
+
+	/**
+	 * The number of tokens printed so far.
+	 */
+	private final AtomicLong tokens = new AtomicLong();
+
+	/**
+	 * Event dispatch thread latencies, in nanoseconds, since the last sample.
+	 */
+	private final LongList latencies = new LongList();
+
+	/**
+	 * Paint times, in nanoseconds, since the last sample.
+	 */
+	private final LongList paintTimes = new LongList();
+
+	/**
+	 * The samples recorded so far, as JSON objects.
+	 */
+	private final List<String> samples = new ArrayList<String>();
+
+	/**
+	 * Constructs a {@code HtmlSoakTest}.
+	 *
+	 * @param  durationSeconds How long to run for
+	 * @param  rate            The target number of tokens per second
+	 * @param  intervalSeconds How often to take a sample
+	 * @param  weights         The weight of each of {@link #TOKEN_KINDS}
+	 * @param  seed            The seed for the token mix
+	 * @param  textPool        The {@code HtmlTextPool} to use, or
+	 *  {@code null} for none
+	 */
+	public HtmlSoakTest(long durationSeconds, int rate, long intervalSeconds,
+		int[] weights, long seed, HtmlTextPool textPool) {
+		durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+		this.rate = rate;
+		intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+		this.weights = weights;
+		random = new Random(seed);
+
+		htmlCanvas = new HtmlCanvas();
+		htmlCanvas.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+		htmlPrinter = new HtmlPrinter(null, htmlCanvas);
+		htmlPrinter.preventDrawing();
+		htmlPrinter.setTextPool(textPool);
+		this.textPool = textPool;
+		htmlCanvas.setHtmlComponents(htmlPrinter.getHtmlComponents());
+		frame = new BufferedImage(WINDOW_WIDTH, WINDOW_HEIGHT,
+			BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Runs the soak test, returning the report.
+	 *
+	 * @return The report, as JSON
+	 * @throws InterruptedException if interrupted while printing
+	 */
+	public String run() throws InterruptedException {
+		ScheduledExecutorService scheduler =
+			Executors.newSingleThreadScheduledExecutor();
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long start = System.nanoTime();
+		long initialHeap = memory.getHeapMemoryUsage().getUsed();
+
+		scheduler.scheduleAtFixedRate(this::postFrame, 0, FRAME_MILLIS,
+			TimeUnit.MILLISECONDS);
+		scheduler.scheduleAtFixedRate(new Sampler(start), intervalNanos,
+			intervalNanos, TimeUnit.NANOSECONDS);
+
+		try {
+			long printed = 0;
+			long now;
+			while ((now = System.nanoTime()) - start < durationNanos) {
+				long due = (long)((now - start) / 1e9 * rate);
+				if (printed >= due) {
+					TimeUnit.NANOSECONDS.sleep(Math.min(1000000000L / rate,
+						1000000L));
+					continue;
+				}
+				for (; printed < due; printed++)
+					printToken();
+				tokens.set(printed);
+			}
+		} finally {
+			scheduler.shutdownNow();
+			scheduler.awaitTermination(1, TimeUnit.SECONDS);
+		}
+
+		StringBuilder report = new StringBuilder();
+		report.append("{\"durationSeconds\":")
+			.append(TimeUnit.NANOSECONDS.toSeconds(durationNanos))
+			.append(",\"targetRate\":").append(rate)
+			.append(",\"mix\":{");
+		for (int i = 0; i < TOKEN_KINDS.length; i++)
+			report.append(i == 0 ? "" : ",").append('"').append(TOKEN_KINDS[i])
+				.append("\":").append(weights[i]);
+		report.append("},\"tokens\":").append(tokens.get())
+			.append(",\"components\":")
+			.append(htmlPrinter.getHtmlComponents().size())
+			.append(",\"initialHeapBytes\":").append(initialHeap)
+			.append(",\"textPool\":");
+		if (textPool == null)
+			report.append("null");
+		else report.append("{\"lookups\":").append(textPool.getLookups())
+			.append(",\"hits\":").append(textPool.getHits())
+			.append(",\"bytesSaved\":").append(textPool.getBytesSaved())
+			.append('}');
+		report
+			.append(",\"samples\":[");
+		synchronized (samples) {
+			for (int i = 0; i < samples.size(); i++)
+				report.append(i == 0 ? "\n" : ",\n").append(samples.get(i));
+		}
+		return report.append("\n]}\n").toString();
+	}
+
+	/**
+	 * Prints a single random token.
+	 */
+	private void printToken() {
+		int total = 0;
+		for (int weight : weights)
+			total += weight;
+		int pick = random.nextInt(total);
+		int kind = 0;
+		while (pick >= weights[kind])
+			pick -= weights[kind++];
+
+		switch (TOKEN_KINDS[kind]) {
+			case "text":
+				htmlPrinter.print(WORDS[random.nextInt(WORDS.length)] + " ");
+				break;
+			case "heading":
+				htmlPrinter.printHeading2(WORDS[random.nextInt(WORDS.length)]);
+				break;
+			case "bold":
+				htmlPrinter.printBold(WORDS[random.nextInt(WORDS.length)]);
+				break;
+			case "pre":
+				htmlPrinter.printPreformattedText("    " +
+					WORDS[random.nextInt(WORDS.length)]);
+				break;
+			case "break":
+				htmlPrinter.printBreak();
+				break;
+			case "rule":
+				htmlPrinter.printHorizontalRule();
+				break;
+			case "color":
+				htmlPrinter.setColor(COLORS[random.nextInt(COLORS.length)]);
+				break;
+		}
+	}
+
+	/**
+	 * Posts a repaint of the bottom of the document to the event dispatch
+	 * thread, recording how long it waited to run and how long it took.
+	 */
+	private void postFrame() {
+		final long posted = System.nanoTime();
+		EventQueue.invokeLater(() -> {
+			long started = System.nanoTime();
+			latencies.add(started - posted);
+			int top = Math.max(0, htmlCanvas.getHeight() - WINDOW_HEIGHT);
+			Graphics2D g = frame.createGraphics();
+			try {
+				g.translate(0, -top);
+				g.setClip(0, top, WINDOW_WIDTH, WINDOW_HEIGHT);
+				htmlCanvas.paintComponent(g);
+			} finally {
+				g.dispose();
+			}
+			paintTimes.add(System.nanoTime() - started);
+		});
+	}
+
+	/**
+	 * Records a sample of throughput, latency, heap and garbage collection.
+	 */
+	private class Sampler implements Runnable {
+		/**
+		 * When the soak test started.
+		 */
+		private final long start;
+
+		/**
+		 * The time, token count and garbage collection totals of the previous
+		 * sample.
+		 */
+		private long lastTime;
+		private long lastTokens;
+		private long lastGcCount;
+		private long lastGcMillis;
+
+		Sampler(long start) {
+			this.start = start;
+			lastTime = start;
+		}
+
+		@Override
+		public void run() {
+			long now = System.nanoTime();
+			long printed = tokens.get();
+			long gcCount = 0;
+			long gcMillis = 0;
+			for (GarbageCollectorMXBean gc :
+				ManagementFactory.getGarbageCollectorMXBeans()) {
+				gcCount += Math.max(0, gc.getCollectionCount());
+				gcMillis += Math.max(0, gc.getCollectionTime());
+			}
+			long[] latency = latencies.drain();
+			long[] paint = paintTimes.drain();
+
+			String sample = String.format("{\"elapsedSeconds\":%.1f," +
+				"\"tokensPerSecond\":%.1f,\"components\":%d," +
+				"\"heapUsedBytes\":%d,\"gcCount\":%d,\"gcMillis\":%d," +
+				"\"edtLatencyMillis\":%s,\"paintMillis\":%s}",
+				(now - start) / 1e9, (printed - lastTokens) * 1e9 /
+				(now - lastTime), htmlPrinter.getHtmlComponents().size(),
+				ManagementFactory.getMemoryMXBean().getHeapMemoryUsage()
+				.getUsed(), gcCount - lastGcCount, gcMillis - lastGcMillis,
+				percentiles(latency), percentiles(paint));
+			synchronized (samples) {
+				samples.add(sample);
+			}
+			System.err.println(sample);
+
+			lastTime = now;
+			lastTokens = printed;
+			lastGcCount = gcCount;
+			lastGcMillis = gcMillis;
+		}
+	}
+
+	/**
+	 * Formats the 50th, 90th, 99th and 100th percentiles of some durations as
+	 * a JSON object, in milliseconds.
+	 *
+	 * @param  nanos The durations, in nanoseconds
+	 * @return The percentiles
+	 */
+	private static String percentiles(long[] nanos) {
+		if (nanos.length == 0)
+			return "null";
+		Arrays.sort(nanos);
+		return String.format("{\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f," +
+			"\"max\":%.3f}", percentile(nanos, 50) / 1e6,
+			percentile(nanos, 90) / 1e6, percentile(nanos, 99) / 1e6,
+			nanos[nanos.length - 1] / 1e6);
+	}
+
+	/**
+	 * Returns a percentile of sorted values.
+	 *
+	 * @param  sorted     The sorted values
+	 * @param  percentile The percentile, from 0 to 100
+	 * @return The value
+	 */
+	private static long percentile(long[] sorted, int percentile) {
+		return sorted[Math.min(sorted.length - 1,
+			sorted.length * percentile / 100)];
+	}
+
+	/**
+	 * A synchronized, growable list of {@code long}s.
+	 */
+	private static class LongList {
+		private long[] values = new long[1024];
+		private int size;
+
+		synchronized void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		synchronized long[] drain() {
+			long[] drained = Arrays.copyOf(values, size);
+			size = 0;
+			return drained;
+		}
+	}
+
+	/**
+	 * Runs a soak test with the options given on the command line.
+	 *
+	 * @param args Command line arguments, as described above
+	 * @throws IOException          if the report cannot be written
+	 * @throws InterruptedException if interrupted while printing
+	 */
+	public static void main(String[] args) throws IOException,
+		InterruptedException {
+		System.setProperty("java.awt.headless", "true");
+
+		long duration = 60;
+		int rate = 10000;
+		long interval = 5;
+		long seed = 0;
+		int[] weights = {10, 1, 2, 2, 2, 1, 1};
+		String reportFile = null;
+		HtmlTextPool textPool = null;
+
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for " +
+					args[i]);
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "--duration":
+					duration = Long.parseLong(value);
+					break;
+				case "--rate":
+					rate = Integer.parseInt(value);
+					break;
+				case "--interval":
+					interval = Long.parseLong(value);
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				case "--mix":
+					weights = parseMix(value);
+					break;
+				case "--pool":
+					textPool = new HtmlTextPool(Integer.parseInt(value),
+						HtmlTextPool.DEFAULT_MAX_LENGTH);
+					break;
+				case "--report":
+					reportFile = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " +
+						args[i]);
+			}
+		}
+		if (duration <= 0 || rate <= 0 || interval <= 0)
+			throw new IllegalArgumentException(
+				"Duration, rate and interval must be positive");
+
+		String report = new HtmlSoakTest(duration, rate, interval, weights,
+			seed, textPool).run();
+		if (reportFile == null)
+			System.out.print(report);
+		else try (PrintWriter out = new PrintWriter(reportFile, "UTF-8")) {
+			out.print(report);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Parses a token mix such as {@code text=10,rule=1}. Kinds that are not
+	 * mentioned get a weight of 0.
+	 *
+	 * @param  mix The token mix
+	 * @return The weight of each of {@link #TOKEN_KINDS}
+	 */
+	private static int[] parseMix(String mix) {
+		int[] weights = new int[TOKEN_KINDS.length];
+		int total = 0;
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.split("=");
+			int kind = Arrays.asList(TOKEN_KINDS).indexOf(parts[0].trim());
+			if (kind < 0 || parts.length != 2)
+				throw new IllegalArgumentException("Bad token mix " + entry);
+			weights[kind] = Integer.parseInt(parts[1].trim());
+			if (weights[kind] < 0)
+				throw new IllegalArgumentException("Bad token mix " + entry);
+			total += weights[kind];
+		}
+		if (total == 0)
+			throw new IllegalArgumentException("Empty token mix");
+		return weights;
+	}
+}
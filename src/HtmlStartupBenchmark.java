@@ -0,0 +1,145 @@
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A benchmark of the time a {@link SimpleHtmlRenderer} takes to first paint
+ * its window. Each run creates a renderer without showing it, prints a
+ * document while drawing is prevented, shows the window and waits for the
+ * canvas to paint its first frame. The first run in a JVM includes loading
+ * AWT, Swing and the fonts; later runs are warm. The times are written as
+ * JSON. A display is needed.
+ *
+ * <p>Usage: {@code java HtmlStartupBenchmark [--runs count] [--lines lines]}.
+ *
+ * @since October 19th, 2026
+ * @see SimpleHtmlRenderer#showWindow
+ */
+public class HtmlStartupBenchmark {
+
+	/**
+	 * How long to wait, in milliseconds, for a first paint before giving up.
+	 */
+	private static final long PAINT_TIMEOUT_MILLIS = 30000;
+
+	/**
+	 * Not instantiable.
+	 */
+	private HtmlStartupBenchmark() {}
+
+	/**
+	 * Creates, fills and shows a renderer, waiting for its first paint.
+	 *
+	 * @param  lines The number of lines to print before showing it
+	 * @return The JSON of the run's times
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static String run(int lines) throws InterruptedException {
+		long start = System.nanoTime();
+		SimpleHtmlRenderer renderer = new SimpleHtmlRenderer(
+			SimpleHtmlRenderer.DEFAULT_WINDOW_WIDTH,
+			SimpleHtmlRenderer.DEFAULT_WINDOW_HEIGHT, false);
+		long constructed = System.nanoTime();
+
+		HtmlPrinter htmlPrinter = renderer.getHtmlPrinter();
+		htmlPrinter.preventDrawing();
+		for (int line = 0; line < lines; line++) {
+			if (line % 50 == 0)
+				htmlPrinter.printHeading2("Section " + line / 50);
+			else {
+				htmlPrinter.print("Line " + line + " of the document ");
+				htmlPrinter.printBold("before");
+				htmlPrinter.print(" the window is shown");
+			}
+			htmlPrinter.println();
+		}
+		long printed = System.nanoTime();
+
+		htmlPrinter.drawHtmlComponents();
+		renderer.showWindow();
+		HtmlCanvas htmlCanvas = renderer.getHtmlCanvas();
+		while (onEventDispatchThread(htmlCanvas::getFramesPainted) == 0) {
+			if (System.nanoTime() - printed >
+				TimeUnit.MILLISECONDS.toNanos(PAINT_TIMEOUT_MILLIS))
+				throw new IllegalStateException("Never painted");
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		long painted = System.nanoTime();
+		onEventDispatchThread(() -> {
+			renderer.dispose();
+			return 0L;
+		});
+
+		return String.format("{\"constructMillis\":%.1f," +
+			"\"printMillis\":%.1f,\"firstPaintMillis\":%.1f," +
+			"\"totalMillis\":%.1f}", (constructed - start) / 1e6,
+			(printed - constructed) / 1e6, (painted - printed) / 1e6,
+			(painted - start) / 1e6);
+	}
+
+	/**
+	 * Runs a task on the event dispatch thread, waiting for its result.
+	 *
+	 * @param  task The task
+	 * @return The result
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static long onEventDispatchThread(LongSupplier task)
+		throws InterruptedException {
+		long[] result = new long[1];
+		try {
+			EventQueue.invokeAndWait(() -> result[0] = task.getAsLong());
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		return result[0];
+	}
+
+	/**
+	 * Runs the benchmark with the options given on the command line and
+	 * prints the report.
+	 *
+	 * @param  args Command line arguments, as described above
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		long jvmMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+		int runs = 5;
+		int lines = 10000;
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for " +
+					args[i]);
+			switch (args[i]) {
+				case "--runs":
+					runs = Integer.parseInt(args[i + 1]);
+					break;
+				case "--lines":
+					lines = Integer.parseInt(args[i + 1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " +
+						args[i]);
+			}
+		}
+		if (runs <= 0 || lines < 0)
+			throw new IllegalArgumentException("Bad option value");
+		if (GraphicsEnvironment.isHeadless()) {
+			System.err.println("HtmlStartupBenchmark needs a display");
+			System.exit(2);
+		}
+
+		StringBuilder report = new StringBuilder();
+		report.append("{\"jvmStartMillis\":").append(jvmMillis)
+			.append(",\"lines\":").append(lines).append(",\"runs\":[");
+		for (int i = 0; i < runs; i++)
+			report.append(i == 0 ? "\n" : ",\n").append(run(lines));
+		System.out.print(report.append("\n]}\n"));
+		System.exit(0);
+	}
+}
@@ -28,7 +28,7 @@ public class HtmlTag extends HtmlComponent {
 	 * @param  lineHeight the height of this {@code HtmlComponent}
 	 */
 	public HtmlTag(String tag, Color color, int lineWidth, int lineHeight) {
-		super(color, lineWidth, lineHeight);
+		super(Kind.forTag(tag), color, lineWidth, lineHeight);
 		this.tag = tag;
 	}
 
@@ -40,4 +40,14 @@ public class HtmlTag extends HtmlComponent {
 	public String getTag() {
 		return tag;
 	}
+
+	@Override
+	public boolean equals(Object other) {
+		return super.equals(other) && tag.equals(((HtmlTag)other).tag);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode() * 31 + tag.hashCode();
+	}
 }
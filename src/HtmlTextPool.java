@@ -0,0 +1,146 @@
+/**
+ * A bounded pool that deduplicates the text of {@link HtmlFragment}s.
+ * Tokenized HTML repeats the same words, tags and whitespace over and over;
+ * passing fragment text through a {@code HtmlTextPool} lets all the
+ * fragments with the same text share one {@link String}.
+ *
+ * <p>The pool is a fixed number of slots indexed by hash. A string that hits
+ * its slot raises the slot's count; a string that misses lowers it, and
+ * replaces the pooled string once the count reaches zero, so frequently used
+ * strings stay and rarely used ones are evicted. Strings longer than a limit
+ * are never pooled. Lookups never allocate, and concurrent use is safe,
+ * although the statistics are then approximate.
+ *
+ * @since October 19th, 2026
+ * @see HtmlPrinter#setTextPool
+ */
+public class HtmlTextPool {
+
+	/**
+	 * The default number of slots.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	/**
+	 * The default length of the longest string that is pooled.
+	 */
+	public static final int DEFAULT_MAX_LENGTH = 64;
+
+	/**
+	 * The approximate size, in bytes, of a {@code String} and its character
+	 * array, not counting the characters.
+	 */
+	private static final int STRING_OVERHEAD = 40;
+
+	/**
+	 * The pooled strings, by slot.
+	 */
+	private final String[] strings;
+
+	/**
+	 * How often the string in each slot has been used recently.
+	 */
+	private final int[] counts;
+
+	/**
+	 * The length of the longest string that is pooled.
+	 */
+	private final int maxLength;
+
+	/**
+	 * The number of lookups, the number of those that returned a pooled
+	 * string, and the approximate bytes those hits saved.
+	 */
+	private long lookups;
+	private long hits;
+	private long bytesSaved;
+
+	/**
+	 * Constructs a {@code HtmlTextPool} with the default capacity and maximum
+	 * length.
+	 */
+	public HtmlTextPool() {
+		this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * Constructs a {@code HtmlTextPool}.
+	 *
+	 * @param  capacity  The number of slots, rounded up to a power of two
+	 * @param  maxLength The length of the longest string to pool
+	 */
+	public HtmlTextPool(int capacity, int maxLength) {
+		if (capacity <= 0 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Bad capacity " + capacity);
+		int slots = Integer.highestOneBit(capacity);
+		if (slots < capacity)
+			slots <<= 1;
+		strings = new String[slots];
+		counts = new int[slots];
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Returns a pooled {@code String} equal to the given one, or the given
+	 * {@code String} itself if none is pooled.
+	 *
+	 * @param  text The text to deduplicate
+	 * @return The pooled text
+	 */
+	public String intern(String text) {
+		lookups++;
+		if (text.length() > maxLength)
+			return text;
+
+		int hash = text.hashCode();
+		int slot = (hash ^ hash >>> 16) & (strings.length - 1);
+		String pooled = strings[slot];
+		if (pooled != null && pooled.equals(text)) {
+			if (counts[slot] < Integer.MAX_VALUE)
+				counts[slot]++;
+			hits++;
+			if (pooled != text)
+				bytesSaved += STRING_OVERHEAD + 2L * text.length();
+			return pooled;
+		}
+		if (--counts[slot] <= 0) {
+			strings[slot] = text;
+			counts[slot] = 1;
+		}
+		return text;
+	}
+
+	/**
+	 * Returns the number of strings looked up.
+	 *
+	 * @return The number of lookups
+	 */
+	public long getLookups() {
+		return lookups;
+	}
+
+	/**
+	 * Returns the number of lookups that returned a pooled string.
+	 *
+	 * @return The number of hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the approximate number of bytes of duplicate strings that
+	 * lookups have made unreachable.
+	 *
+	 * @return The bytes saved
+	 */
+	public long getBytesSaved() {
+		return bytesSaved;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("HtmlTextPool[slots=%d, lookups=%d, hits=%d, " +
+			"bytesSaved=%d]", strings.length, lookups, hits, bytesSaved);
+	}
+}
@@ -0,0 +1,515 @@
+import javax.swing.JViewport;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rasterizes the regions of a {@link HtmlCanvas} next to the visible part of
+ * a {@link JViewport} on background threads, so that scrolling quickly
+ * through a long document draws finished images instead of rasterizing text
+ * on the event dispatch thread.
+ *
+ * <p>The canvas is split into tiles the size of the viewport. Whenever the
+ * viewport moves, the tiles for the previous and next screens are rendered,
+ * with an extra screen ahead in the direction of a fast scroll; pending tiles
+ * that are no longer wanted are cancelled, and the tiles farthest from the
+ * viewport are discarded once their images take more than
+ * {@link #MAX_TILE_BYTES}. A tile stays valid while components are only
+ * appended below it.
+ *
+ * @since October 19th, 2026
+ * @see HtmlCanvas
+ * @see SimpleHtmlRenderer
+ */
+public class HtmlTilePrefetcher implements ChangeListener {
+
+	/**
+	 * The scroll speed, in pixels per millisecond, above which an extra screen
+	 * is prefetched ahead of the viewport.
+	 */
+	private static final double FAST_SCROLL_SPEED = 2;
+
+	/**
+	 * The most bytes of tile images kept, whatever the size of the viewport
+	 * and the scale of the screen; the farthest tiles from the viewport are
+	 * discarded first. It holds about six screens of the default window size
+	 * at a scale of 2.
+	 */
+	private static final long MAX_TILE_BYTES = 48L << 20;
+
+	/**
+	 * The bytes taken by each pixel of a tile's image.
+	 */
+	private static final int BYTES_PER_PIXEL = 4;
+
+	/**
+	 * The {@code HtmlCanvas} to rasterize.
+	 */
+	private final HtmlCanvas htmlCanvas;
+
+	/**
+	 * The {@code JViewport} showing the canvas.
+	 */
+	private final JViewport viewport;
+
+	/**
+	 * The threads that rasterize tiles.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * The finished tiles, by {@link #key}.
+	 */
+	private final Map<Long, Tile> tiles = new ConcurrentHashMap<Long, Tile>();
+
+	/**
+	 * The tiles being rasterized, by {@link #key}. Finished entries are
+	 * removed the next time tiles are prefetched.
+	 */
+	private final Map<Long, Future<?>> pending =
+		new ConcurrentHashMap<Long, Future<?>>();
+
+	/**
+	 * The width of a tile, which is the width of the viewport.
+	 */
+	private int tileWidth;
+
+	/**
+	 * The height of a tile, which is the height of the viewport.
+	 */
+	private int tileHeight;
+
+	/**
+	 * Incremented whenever all tiles are discarded, so that tiles rasterized
+	 * for an earlier size of the viewport are never kept.
+	 */
+	private final AtomicInteger generation = new AtomicInteger();
+
+	/**
+	 * The scale of the {@code Graphics} last painted to, so that tiles match
+	 * the resolution of the screen.
+	 */
+	private double scale = 1;
+
+	/**
+	 * The previous y coord of the viewport.
+	 */
+	private int lastY;
+
+	/**
+	 * When the viewport was at {@link #lastY}.
+	 */
+	private long lastTime;
+
+	/**
+	 * Statistics on frames drawn from tiles and frame times.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong frames = new AtomicLong();
+	private final AtomicLong frameNanos = new AtomicLong();
+	private final AtomicLong maxFrameNanos = new AtomicLong();
+
+	/**
+	 * A rasterized region of the canvas.
+	 */
+	private static class Tile {
+		/**
+		 * The image of the region.
+		 */
+		final BufferedImage image;
+
+		/**
+		 * The region rasterized.
+		 */
+		final int top;
+		final int width;
+		final int height;
+
+		/**
+		 * The {@link HtmlTilePrefetcher#generation} the tile was rasterized
+		 * in.
+		 */
+		final int generation;
+
+		/**
+		 * The state of the canvas when the region was rasterized.
+		 */
+		final int revision;
+		final int componentCount;
+		final int canvasWidth;
+		final int lastLineTop;
+		final double scale;
+
+		Tile(BufferedImage image, Rectangle region, int generation,
+			int revision, int componentCount, int canvasWidth, int lastLineTop,
+			double scale) {
+			this.image = image;
+			this.top = region.y;
+			this.width = region.width;
+			this.height = region.height;
+			this.generation = generation;
+			this.revision = revision;
+			this.componentCount = componentCount;
+			this.canvasWidth = canvasWidth;
+			this.lastLineTop = lastLineTop;
+			this.scale = scale;
+		}
+	}
+
+	/**
+	 * Constructs a {@code HtmlTilePrefetcher} and starts watching the
+	 * viewport.
+	 *
+	 * @param  htmlCanvas The {@code HtmlCanvas} to rasterize
+	 * @param  viewport   The {@code JViewport} showing the canvas
+	 * @param  threads    The number of background threads to use
+	 */
+	public HtmlTilePrefetcher(HtmlCanvas htmlCanvas, JViewport viewport,
+		int threads) {
+		this.htmlCanvas = htmlCanvas;
+		this.viewport = viewport;
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "HtmlTilePrefetcher");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		viewport.addChangeListener(this);
+		htmlCanvas.setTilePrefetcher(this);
+	}
+
+	/**
+	 * Called when the viewport moves or is resized; prefetches the tiles
+	 * around it.
+	 *
+	 * @param e The event
+	 */
+	@Override
+	public void stateChanged(ChangeEvent e) {
+		Rectangle view = viewport.getViewRect();
+		if (view.width <= 0 || view.height <= 0)
+			return;
+		if (view.width != tileWidth || view.height != tileHeight) {
+			cancel();
+			generation.incrementAndGet();
+			tiles.clear();
+			tileWidth = view.width;
+			tileHeight = view.height;
+		}
+
+		long now = System.nanoTime();
+		double speed = lastTime == 0 ? 0 :
+			(view.y - lastY) * 1e6 / Math.max(1, now - lastTime);
+		lastY = view.y;
+		lastTime = now;
+
+		int above = 1;
+		int below = 1;
+		if (speed > FAST_SCROLL_SPEED)
+			below++;
+		else if (speed < -FAST_SCROLL_SPEED)
+			above++;
+		prefetch(view, above, below);
+	}
+
+	/**
+	 * Rasterizes the tiles covering the view and a number of screens above and
+	 * below it, nearest first and as many as fit in {@link #MAX_TILE_BYTES},
+	 * and discards the tiles farthest away.
+	 *
+	 * @param view  The visible region of the canvas
+	 * @param above The number of screens above the view to prefetch
+	 * @param below The number of screens below the view to prefetch
+	 */
+	private void prefetch(Rectangle view, int above, int below) {
+		int canvasWidth = htmlCanvas.getWidth();
+		int firstColumn = view.x / tileWidth;
+		int lastColumn = (view.x + view.width - 1) / tileWidth;
+		int firstRow = Math.max(0, view.y / tileHeight - above);
+		int lastRow = Math.min((htmlCanvas.getHeight() - 1) / tileHeight,
+			(view.y + view.height - 1) / tileHeight + below);
+		long tileBytes = BYTES_PER_PIXEL *
+			(long)Math.ceil(tileWidth * scale) *
+			(long)Math.ceil(tileHeight * scale);
+		int maxTiles = (int)Math.min(Integer.MAX_VALUE,
+			MAX_TILE_BYTES / tileBytes);
+
+		for (Iterator<Map.Entry<Long, Future<?>>> i =
+			pending.entrySet().iterator(); i.hasNext();) {
+			Map.Entry<Long, Future<?>> entry = i.next();
+			int row = (int)(long)entry.getKey();
+			int column = (int)(entry.getKey() >> 32);
+			if (entry.getValue().isDone())
+				i.remove();
+			else if (row < firstRow || row > lastRow || column < firstColumn ||
+				column > lastColumn) {
+				entry.getValue().cancel(true);
+				i.remove();
+			}
+		}
+
+		Long[] keys = new Long[(lastRow - firstRow + 1) *
+			(lastColumn - firstColumn + 1)];
+		for (int row = firstRow, i = 0; row <= lastRow; row++)
+			for (int column = firstColumn; column <= lastColumn; column++)
+				keys[i++] = key(column, row);
+		Arrays.sort(keys, Comparator.comparingInt((Long key) ->
+			distance(key, view)));
+		for (int i = 0; i < Math.min(maxTiles, keys.length); i++) {
+			long key = keys[i];
+			Future<?> future = pending.get(key);
+			if (isValid(tiles.get(key), canvasWidth) ||
+				future != null && !future.isDone())
+				continue;
+			Rectangle region = new Rectangle((int)(key >> 32) * tileWidth,
+				(int)key * tileHeight, tileWidth, tileHeight);
+			int tileGeneration = generation.get();
+			double tileScale = scale;
+			pending.put(key, executor.submit(() ->
+				rasterize(key, region, tileGeneration, tileScale)));
+		}
+		discard(view, MAX_TILE_BYTES - pending.size() * tileBytes);
+	}
+
+	/**
+	 * Discards the tiles farthest from the viewport until their images take
+	 * at most a number of bytes, which leaves room for the pending tiles.
+	 *
+	 * @param view     The visible region of the canvas
+	 * @param maxBytes The most bytes of tile images to keep
+	 */
+	private void discard(Rectangle view, long maxBytes) {
+		Long[] keys = tiles.keySet().toArray(new Long[0]);
+		long bytes = 0;
+		for (Long key : keys) {
+			Tile tile = tiles.get(key);
+			if (tile != null)
+				bytes += BYTES_PER_PIXEL * (long)tile.image.getWidth() *
+					tile.image.getHeight();
+		}
+		if (bytes <= maxBytes)
+			return;
+		Arrays.sort(keys, Comparator.comparingInt((Long key) ->
+			distance(key, view)).reversed());
+		for (int i = 0; i < keys.length && bytes > maxBytes; i++) {
+			Tile tile = tiles.remove(keys[i]);
+			if (tile != null)
+				bytes -= BYTES_PER_PIXEL * (long)tile.image.getWidth() *
+					tile.image.getHeight();
+		}
+	}
+
+	/**
+	 * Returns the number of pixels between a tile and the view, in whichever
+	 * direction is farther, or a negative number if they overlap.
+	 *
+	 * @param  key  The key of the tile
+	 * @param  view The visible region of the canvas
+	 * @return The distance
+	 */
+	private int distance(long key, Rectangle view) {
+		int x = (int)(key >> 32) * tileWidth;
+		int y = (int)key * tileHeight;
+		return Math.max(
+			Math.max(x - (view.x + view.width), view.x - (x + tileWidth)),
+			Math.max(y - (view.y + view.height), view.y - (y + tileHeight)));
+	}
+
+	/**
+	 * Rasterizes a single tile. Runs on a background thread. The tile is only
+	 * kept if the canvas was not rewritten and the tiles were not discarded
+	 * while it was drawn.
+	 *
+	 * @param key            The key of the tile
+	 * @param region         The region of the canvas to rasterize
+	 * @param tileGeneration The {@link #generation} it was requested in
+	 * @param tileScale      The scale to rasterize at
+	 */
+	private void rasterize(long key, Rectangle region, int tileGeneration,
+		double tileScale) {
+		int revision = htmlCanvas.getRevision();
+		int componentCount = htmlCanvas.getHtmlComponentCount();
+		int canvasWidth = htmlCanvas.getWidth();
+		int lastLineTop = htmlCanvas.getLastLineTop();
+
+		BufferedImage image = new BufferedImage(
+			(int)Math.ceil(region.width * tileScale),
+			(int)Math.ceil(region.height * tileScale),
+			BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.scale(tileScale, tileScale);
+			g.translate(-region.x, -region.y);
+			g.clip(region);
+			htmlCanvas.drawTile(g, region);
+		} finally {
+			g.dispose();
+		}
+		if (Thread.currentThread().isInterrupted() ||
+			htmlCanvas.getRevision() != revision)
+			return;
+		Tile tile = new Tile(image, region, tileGeneration, revision,
+			componentCount, canvasWidth, lastLineTop, tileScale);
+		// A tile put after the generation moves on is never valid, and is
+		// discarded by the next prefetch
+		if (generation.get() == tileGeneration)
+			tiles.put(key, tile);
+	}
+
+	/**
+	 * Draws the tiles covering the clip of a {@code Graphics}, if they are all
+	 * ready. Called by {@link HtmlCanvas} on the event dispatch thread.
+	 *
+	 * @param  g The {@code Graphics} to draw to
+	 * @return true if the tiles were drawn, false if the canvas must draw its
+	 *  components itself
+	 */
+	boolean drawTiles(Graphics g) {
+		scale = ((Graphics2D)g).getTransform().getScaleX();
+		Rectangle clip = g.getClipBounds();
+		if (tileWidth == 0 || clip == null || clip.isEmpty())
+			return false;
+
+		int canvasWidth = htmlCanvas.getWidth();
+		int firstColumn = clip.x / tileWidth;
+		int lastColumn = (clip.x + clip.width - 1) / tileWidth;
+		int firstRow = clip.y / tileHeight;
+		int lastRow = (clip.y + clip.height - 1) / tileHeight;
+		int columns = lastColumn - firstColumn + 1;
+		Tile[] drawn = new Tile[(lastRow - firstRow + 1) * columns];
+		for (int row = firstRow; row <= lastRow; row++)
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				Tile tile = tiles.get(key(column, row));
+				if (!isValid(tile, canvasWidth)) {
+					misses.incrementAndGet();
+					prefetch(viewport.getViewRect(), 1, 1);
+					return false;
+				}
+				drawn[(row - firstRow) * columns + column - firstColumn] = tile;
+			}
+
+		for (int i = 0; i < drawn.length; i++)
+			g.drawImage(drawn[i].image, (firstColumn + i % columns) * tileWidth,
+				(firstRow + i / columns) * tileHeight, tileWidth, tileHeight,
+				null);
+		hits.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Tests if a tile still matches the canvas.
+	 *
+	 * @param  tile        The tile, or {@code null}
+	 * @param  canvasWidth The width of the canvas, read once per pass
+	 * @return true if valid, false otherwise
+	 */
+	private boolean isValid(Tile tile, int canvasWidth) {
+		if (tile == null || tile.generation != generation.get() ||
+			tile.width != tileWidth || tile.height != tileHeight ||
+			tile.revision != htmlCanvas.getRevision() ||
+			tile.canvasWidth != canvasWidth || tile.scale != scale)
+			return false;
+		// Appended components only change the last line and below
+		return tile.componentCount == htmlCanvas.getHtmlComponentCount() ||
+			tile.top + tileHeight <= tile.lastLineTop;
+	}
+
+	/**
+	 * Records how long the canvas took to paint a frame.
+	 *
+	 * @param nanos The duration, in nanoseconds
+	 */
+	void recordFrame(long nanos) {
+		frames.incrementAndGet();
+		frameNanos.addAndGet(nanos);
+		maxFrameNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**
+	 * Returns a key for the tile at a column and row.
+	 *
+	 * @param  column The column of the tile
+	 * @param  row    The row of the tile
+	 * @return The key
+	 */
+	private static long key(int column, int row) {
+		return (long)column << 32 | row & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Cancels all pending tiles.
+	 */
+	public void cancel() {
+		for (Future<?> future : pending.values())
+			future.cancel(true);
+		pending.clear();
+	}
+
+	/**
+	 * Stops prefetching, discarding all tiles and stopping the background
+	 * threads.
+	 */
+	public void shutdown() {
+		viewport.removeChangeListener(this);
+		htmlCanvas.setTilePrefetcher(null);
+		cancel();
+		executor.shutdownNow();
+		generation.incrementAndGet();
+		tiles.clear();
+	}
+
+	/**
+	 * Returns the fraction of frames that were drawn entirely from prefetched
+	 * tiles.
+	 *
+	 * @return The hit rate, from 0 to 1
+	 */
+	public double getHitRate() {
+		long total = hits.get() + misses.get();
+		return total == 0 ? 0 : (double)hits.get() / total;
+	}
+
+	/**
+	 * Returns the mean time the canvas took to paint a frame.
+	 *
+	 * @return The mean frame time, in milliseconds
+	 */
+	public double getMeanFrameMillis() {
+		long count = frames.get();
+		return count == 0 ? 0 : frameNanos.get() / 1e6 / count;
+	}
+
+	/**
+	 * Returns the longest time the canvas took to paint a frame.
+	 *
+	 * @return The longest frame time, in milliseconds
+	 */
+	public double getMaxFrameMillis() {
+		return maxFrameNanos.get() / 1e6;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("HtmlTilePrefetcher[hits=%d, misses=%d, " +
+			"hitRate=%.3f, frames=%d, meanFrameMillis=%.3f, " +
+			"maxFrameMillis=%.3f, tiles=%d, pending=%d]", hits.get(),
+			misses.get(), getHitRate(), frames.get(), getMeanFrameMillis(),
+			getMaxFrameMillis(), tiles.size(), pending.size());
+	}
+}
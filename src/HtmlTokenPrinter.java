@@ -0,0 +1,197 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import java.util.Locale;
+
+/**
+ * Prints tokenized HTML to a {@link HtmlPrinter}. Each line of input is split
+ * into tokens on whitespace; a token that starts with {@code <} and ends with
+ * {@code >} is a tag, and anything else is a word. Inside {@code <pre>}, each
+ * line is printed as is instead.
+ *
+ * <p>The supported tags are {@code <b>}, {@code <strong>}, {@code <i>},
+ * {@code <em>}, {@code <h1>} through {@code <h6>}, {@code <pre>},
+ * {@code <p>}, {@code <br>} and {@code <hr>}, with their closing tags. Other
+ * tags, such as {@code <html>} and {@code <body>}, are ignored.
+ *
+ * @since October 19th, 2026
+ * @see HtmlPrinter
+ */
+public class HtmlTokenPrinter {
+
+	/**
+	 * The {@code HtmlPrinter} to print to.
+	 */
+	private final HtmlPrinter htmlPrinter;
+
+	/**
+	 * The level of the heading being printed, or 0 if none.
+	 */
+	private int heading;
+
+	/**
+	 * Whether bold, italic or preformatted text is being printed.
+	 */
+	private boolean bold;
+	private boolean italic;
+	private boolean preformatted;
+
+	/**
+	 * Constructs a {@code HtmlTokenPrinter}.
+	 *
+	 * @param  htmlPrinter The {@code HtmlPrinter} to print to
+	 */
+	public HtmlTokenPrinter(HtmlPrinter htmlPrinter) {
+		this.htmlPrinter = htmlPrinter;
+	}
+
+	/**
+	 * Prints all the tokenized HTML read from a {@code Reader}, one line at a
+	 * time. The {@code Reader} is not closed.
+	 *
+	 * @param  reader The {@code Reader} to read from
+	 * @throws IOException if reading fails
+	 */
+	public void print(Reader reader) throws IOException {
+		BufferedReader lines = reader instanceof BufferedReader ?
+			(BufferedReader)reader : new BufferedReader(reader);
+		String line;
+		while ((line = lines.readLine()) != null)
+			printLine(line);
+	}
+
+	/**
+	 * Prints a single line of tokenized HTML.
+	 *
+	 * @param line The line to print
+	 */
+	public void printLine(String line) {
+		if (preformatted) {
+			String trimmed = line.trim();
+			if (isTag(trimmed)) {
+				printToken(trimmed);
+				return;
+			}
+			htmlPrinter.printPreformattedText(line);
+			htmlPrinter.println();
+			return;
+		}
+
+		int length = line.length();
+		int start = 0;
+		while (start < length) {
+			while (start < length && Character.isWhitespace(line.charAt(start)))
+				start++;
+			int end = start;
+			while (end < length && !Character.isWhitespace(line.charAt(end)))
+				end++;
+			if (end > start)
+				printToken(line.substring(start, end));
+			start = end;
+		}
+	}
+
+	/**
+	 * Prints a single token.
+	 *
+	 * @param token The tag or word to print
+	 */
+	public void printToken(String token) {
+		if (!isTag(token)) {
+			printWord(token);
+			return;
+		}
+
+		String tag = token.substring(1, token.length() - 1).trim()
+			.toLowerCase(Locale.ROOT);
+		boolean closing = tag.startsWith("/");
+		if (closing)
+			tag = tag.substring(1);
+		if (tag.endsWith("/"))
+			tag = tag.substring(0, tag.length() - 1).trim();
+
+		switch (tag) {
+			case "b":
+			case "strong":
+				bold = !closing;
+				break;
+			case "i":
+			case "em":
+				italic = !closing;
+				break;
+			case "h1":
+			case "h2":
+			case "h3":
+			case "h4":
+			case "h5":
+			case "h6":
+				heading = closing ? 0 : tag.charAt(1) - '0';
+				if (closing)
+					htmlPrinter.println();
+				break;
+			case "pre":
+				preformatted = !closing;
+				break;
+			case "p":
+				if (closing)
+					htmlPrinter.printBreak();
+				break;
+			case "br":
+				htmlPrinter.println();
+				break;
+			case "hr":
+				htmlPrinter.printHorizontalRule();
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Prints a word with the current formatting, followed by a space.
+	 *
+	 * @param word The word to print
+	 */
+	private void printWord(String word) {
+		String text = word + " ";
+		switch (heading) {
+			case 1:
+				htmlPrinter.printHeading1(text);
+				break;
+			case 2:
+				htmlPrinter.printHeading2(text);
+				break;
+			case 3:
+				htmlPrinter.printHeading3(text);
+				break;
+			case 4:
+				htmlPrinter.printHeading4(text);
+				break;
+			case 5:
+				htmlPrinter.printHeading5(text);
+				break;
+			case 6:
+				htmlPrinter.printHeading6(text);
+				break;
+			default:
+				if (bold)
+					htmlPrinter.printBold(text);
+				else if (italic)
+					htmlPrinter.printItalic(text);
+				else htmlPrinter.print(text);
+				break;
+		}
+	}
+
+	/**
+	 * Tests if a token is a tag.
+	 *
+	 * @param  token The token to test
+	 * @return true if a tag, false otherwise
+	 */
+	private static boolean isTag(String token) {
+		return token.length() > 2 && token.charAt(0) == '<' &&
+			token.charAt(token.length() - 1) == '>';
+	}
+}
@@ -1,18 +1,22 @@
 import javax.swing.JFrame;
 import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 
 import java.awt.Color;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.Toolkit;
+
+import java.lang.reflect.InvocationTargetException;
 
 /**
  * The main class for SimpleHtmlRenderer, a program that can help pretty-print
  * tokenized HTML. {@code SimpleHtmlRenderer} supports various colors, fonts
  * and even some special tags such as horizontal rules. A {@link JFrame}, it
  * manages a single {@link HtmlCanvas} and allows printing to it through a
- * {@link HtmlPrinter}.
+ * {@link HtmlPrinter}. The contents of the window are only created, on the
+ * event dispatch thread, when it is first shown; until then, anything
+ * printed is simply kept by the {@code HtmlPrinter}.
  *
  * @author Ofek Gila
  * @author Saagar Jha
@@ -35,27 +39,37 @@ public class SimpleHtmlRenderer extends JFrame {
 	public static final int DEFAULT_WINDOW_HEIGHT = 500;
 
 	/**
-	 * The width of the screen, in pixels.
+	 * The title of a {@code SimpleHtmlRenderer}'s window.
 	 */
-	private final int SCREEN_WIDTH =
-		(int)Toolkit.getDefaultToolkit().getScreenSize().getWidth();
+	private static final String TITLE = "Simple HTML Renderer";
 
 	/**
-	 * The height of the screen, in pixels.
+	 * This {@code SimpleHtmlRenderer}'s {@code HtmlCanvas}.
 	 */
-	private final int SCREEN_HEIGHT =
-		(int)Toolkit.getDefaultToolkit().getScreenSize().getHeight();
+	private final HtmlCanvas htmlCanvas;
 
 	/**
-	 * This {@code SimpleHtmlRenderer}'s {@code HtmlCanvas}.
+	 * The {@code JScrollPane} that bounds this {@code SimpleHtmlRenderer}'s
+	 * {@code HtmlCanvas}, or {@code null} until the window is first shown.
 	 */
-	private HtmlCanvas htmlCanvas;
+	private volatile JScrollPane scrollPane;
 
 	/**
-	 * The {@code JScrollPane} that bounds this {@code SimpleHtmlRenderer}'s
-	 * {@code HtmlCanvas}.
+	 * The {@code HtmlTilePrefetcher} that rasterizes the screens around the
+	 * visible part of this {@code SimpleHtmlRenderer}'s {@code HtmlCanvas},
+	 * or {@code null} until the window is first shown.
+	 *
+	 * @see SimpleHtmlRenderer#getTilePrefetcher
+	 */
+	private volatile HtmlTilePrefetcher tilePrefetcher;
+
+	/**
+	 * The text selected with the mouse on this {@code SimpleHtmlRenderer}'s
+	 * {@code HtmlCanvas}, or {@code null} until the window is first shown.
+	 *
+	 * @see SimpleHtmlRenderer#getSelection
 	 */
-	private JScrollPane scrollPane;
+	private volatile HtmlSelection selection;
 
 	/**
 	 * The {@code HtmlPrinter} that manages printing for this
@@ -63,7 +77,7 @@ public class SimpleHtmlRenderer extends JFrame {
 	 *
 	 * @see SimpleHtmlRenderer#getHtmlPrinter
 	 */
-	private HtmlPrinter htmlPrinter;
+	private final HtmlPrinter htmlPrinter;
 
 	/**
 	 * Constructs a {@code SimpleHtmlRenderer} and creates a window with the
@@ -84,51 +98,105 @@ public class SimpleHtmlRenderer extends JFrame {
 	 * @param height The height of the window to create
 	 */
 	public SimpleHtmlRenderer(int width, int height) {
-		super("Simple HTML Renderer");
+		this(width, height, true);
+	}
+
+	/**
+	 * Constructs a {@code SimpleHtmlRenderer} with the given width and height,
+	 * optionally without showing its window. Nothing but the
+	 * {@code HtmlCanvas} and {@code HtmlPrinter} is created until the window
+	 * is shown, and output printed before then is drawn on the first paint,
+	 * which avoids laying out the window after every print during startup.
+	 *
+	 * @param width   The width of the window to create
+	 * @param height  The height of the window to create
+	 * @param visible Whether to show the window immediately
+	 * @see SimpleHtmlRenderer#showWindow
+	 */
+	public SimpleHtmlRenderer(int width, int height, boolean visible) {
+		super(TITLE);
 
 		setSize(width, height);
-		centerOnScreen();
 		setResizable(true);
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
-		setVisible(true);
 
-		setLayout(new BorderLayout());
-		createCanvas();
+		htmlCanvas = new HtmlCanvas();
+		htmlCanvas.setPreferredSize(new Dimension(width, height));
 		htmlPrinter = new HtmlPrinter(this, htmlCanvas);
 		htmlCanvas.setHtmlComponents(htmlPrinter.getHtmlComponents());
-		addScrollPane();
+		if (visible)
+			showWindow();
 	}
 
 	/**
-	 * Creates the {@code HtmlCanvas} for this class and adds it to the content
-	 * pane, making sure it fills the window.
+	 * Shows this {@code SimpleHtmlRenderer}'s window, creating its contents
+	 * the first time. Anything printed beforehand is drawn on the first
+	 * paint. May be called from any thread.
 	 */
-	private void createCanvas() {
-		htmlCanvas = new HtmlCanvas();
-		htmlCanvas.setPreferredSize(new Dimension(getWidth(), getHeight()));
-		add(htmlCanvas, BorderLayout.CENTER);
+	public void showWindow() {
+		runOnEventDispatchThread(() -> {
+			if (scrollPane != null)
+				return;
+			setLayout(new BorderLayout());
+			selection = new HtmlSelection(htmlCanvas);
+			addScrollPane();
+			centerOnScreen();
+			setVisible(true);
+			scrollPane.requestFocus(); // So that we can scroll using the
+			                           // keyboard arrow keys
+		});
+	}
+
+	/**
+	 * Runs a task on the event dispatch thread, waiting for it to finish.
+	 *
+	 * @param task The task to run
+	 */
+	private static void runOnEventDispatchThread(Runnable task) {
+		if (SwingUtilities.isEventDispatchThread()) {
+			task.run();
+			return;
+		}
+		try {
+			SwingUtilities.invokeAndWait(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+				"Interrupted while waiting for the event dispatch thread", e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e.getCause());
+		}
 	}
 
 	/**
 	 * Adds a {@code JScrollPane} containing this {@code SimpleHtmlPrinter}'s
-	 * {@code HtmlCanvas} to the content pane and sets its default scrolling
-	 * increment.
+	 * {@code HtmlCanvas} to the content pane, sets its default scrolling
+	 * increment and starts prefetching the tiles around its view.
 	 */
 	private void addScrollPane() {
-		scrollPane = new JScrollPane(htmlCanvas);
+		JScrollPane scrollPane = new JScrollPane(htmlCanvas);
 		scrollPane.getVerticalScrollBar().setUnitIncrement(16);
 		scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
-		add(scrollPane);
-		scrollPane.requestFocus(); // So that we can scroll using the keyboard
-		                           // arrow keys
+		add(scrollPane, BorderLayout.CENTER);
+		tilePrefetcher = new HtmlTilePrefetcher(htmlCanvas,
+			scrollPane.getViewport(), 2);
+		this.scrollPane = scrollPane;
 	}
 
 	/**
 	 * Centers this {@code SimpleHtmlRenderer} on the screen.
 	 */
 	private void centerOnScreen() {
-		setLocation((SCREEN_WIDTH - getWidth()) / 2,
-			(SCREEN_HEIGHT - getHeight()) / 2);
+		setLocationRelativeTo(null);
+	}
+
+	/**
+	 * Returns this {@code SimpleHtmlRenderer}'s {@code HtmlCanvas}.
+	 *
+	 * @return The {@code HtmlCanvas}
+	 */
+	public HtmlCanvas getHtmlCanvas() {
+		return htmlCanvas;
 	}
 
 	/**
@@ -141,14 +209,41 @@ public class SimpleHtmlRenderer extends JFrame {
 		return htmlPrinter;
 	}
 
+	/**
+	 * Returns the {@code HtmlTilePrefetcher} that rasterizes the screens
+	 * around the visible part of this {@code SimpleHtmlRenderer}'s
+	 * {@code HtmlCanvas}, for its hit rate and frame times.
+	 *
+	 * @return The {@code HtmlTilePrefetcher}, or {@code null} if the window
+	 *  has not been shown
+	 */
+	public HtmlTilePrefetcher getTilePrefetcher() {
+		return tilePrefetcher;
+	}
+
+	/**
+	 * Returns the {@code HtmlSelection} of the text selected with the mouse
+	 * on this {@code SimpleHtmlRenderer}'s {@code HtmlCanvas}.
+	 *
+	 * @return The {@code HtmlSelection}, or {@code null} if the window has
+	 *  not been shown
+	 */
+	public HtmlSelection getSelection() {
+		return selection;
+	}
+
 	/**
 	 * Informs the {@code JScrollPane} that the {@code HtmlCanvas}'s size has
 	 * changed. You should not need to call this method; {@code HtmlPrinter}
-	 * will take care of it automatically.
+	 * will take care of it automatically. Before the window is shown there is
+	 * nothing to lay out, so only the preferred size is updated.
 	 */
 	public void cleanupAfterPrint() {
 		htmlCanvas.setPreferredSize(new Dimension(htmlCanvas.getWidth(),
 			htmlCanvas.getHeight()));
+		JScrollPane scrollPane = this.scrollPane;
+		if (scrollPane == null)
+			return;
 		revalidate(); // Notify the content pane of the size change
 		scrollPane.revalidate(); // Notify the scroll pane of the size change
 	}
@@ -161,8 +256,10 @@ public class SimpleHtmlRenderer extends JFrame {
 	 * @param args Command line arguments, currently unused
 	 */
 	public static void main(String[] args) {
-		SimpleHtmlRenderer simpleHtmlPrinter = new SimpleHtmlRenderer();
+		SimpleHtmlRenderer simpleHtmlPrinter = new SimpleHtmlRenderer(
+			DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT, false);
 		HtmlPrinter htmlPrinter = simpleHtmlPrinter.getHtmlPrinter();
+		htmlPrinter.preventDrawing();
 
 		// An example, for testing purposes
 		htmlPrinter.printPreformattedText("This text is pre-formatted!");
@@ -230,5 +327,8 @@ public class SimpleHtmlRenderer extends JFrame {
 		htmlPrinter.printPreformattedText("111111111122222222223333333333" +
 			"44444444445555555555666666666677777777778888888888");
 		htmlPrinter.print("Line break at 80 :D");
+
+		htmlPrinter.drawHtmlComponents();
+		simpleHtmlPrinter.showWindow();
 	}
 }